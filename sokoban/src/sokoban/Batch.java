@@ -0,0 +1,394 @@
+package sokoban;
+
+import sokoban.domain.Level;
+import sokoban.domain.LevelCollection;
+import sokoban.solver.AStarSolver;
+import sokoban.solver.BidirectionalSolver;
+import sokoban.solver.IdaStarSolver;
+import sokoban.solver.ParallelSolver;
+import sokoban.solver.ReplacementPolicy;
+import sokoban.solver.Solution;
+import sokoban.solver.Solver;
+import sokoban.solver.Statistics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Command line entry point solving every Level of a collection, without
+ * graphical interface. Collection is memory mapped and indexed once, with
+ * the index saved next to it for the next run, and levels are parsed lazily
+ * by a bounded pool of threads solving them. Submitting waits when
+ * all threads are busy and some levels are queued, so only a few levels are
+ * in memory at once, whatever the size of collection.
+ *
+ * Result of every Level is written as soon as it's solved, as one line of
+ * CSV or JSON, so results of different levels may come out of order.
+ *
+ * Every search is limited to its share of memory, so one hard Level can't
+ * take memory of others. Fewer levels are solved at once when memory of one
+ * search times the number of threads doesn't fit in the heap.
+ *
+ * Usage: java sokoban.Batch [options] collection.txt
+ *
+ * @author Ketom
+ */
+public class Batch {
+    /**
+     * Formats of written results.
+     */
+    public enum Format {
+        CSV, JSON
+    }
+
+    /**
+     * Header of CSV output.
+     */
+    private static final String CSV_HEADER = "level,status,pushes,moves,nodes,time,solution";
+
+    /**
+     * Name of Solver used for every Level.
+     */
+    private String solverName = "astar";
+
+    /**
+     * The number of levels solved at once.
+     */
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Maximum duration of search of one Level in milliseconds; 0 if
+     * unlimited.
+     */
+    private long timeLimit;
+
+    /**
+     * Maximum number of nodes expanded for one Level; 0 if unlimited.
+     */
+    private long nodesLimit;
+
+    /**
+     * Memory budget of search of one Level in bytes; 0 if it's an equal share
+     * of the heap.
+     */
+    private long memoryLimit;
+
+    /**
+     * Directory to which A* search moves visited states when its table is
+     * full; null if they are kept only in memory.
+     */
+    private File spillDirectory;
+
+    /**
+     * Whether A* search uses macro moves.
+     */
+    private boolean macroMoves;
+
+    /**
+     * Format of written results.
+     */
+    private Format format = Format.CSV;
+
+    /**
+     * Main method of class.
+     * @param args options followed by path of collection file
+     * @throws IOException when unable to read collection
+     */
+    public static void main(String[] args) throws IOException {
+        Batch batch = new Batch();
+        String path = null;
+        try {
+            for(int i = 0; i < args.length; i++) {
+                switch(args[i]) {
+                    case "--solver":
+                        batch.setSolverName(args[++i]);
+                        break;
+                    case "--threads":
+                        batch.setThreads(Integer.parseInt(args[++i]));
+                        break;
+                    case "--time":
+                        batch.setTimeLimit(Long.parseLong(args[++i]) * 1000);
+                        break;
+                    case "--nodes":
+                        batch.setNodesLimit(Long.parseLong(args[++i]));
+                        break;
+                    case "--memory":
+                        batch.setMemoryLimit(Long.parseLong(args[++i]) << 20);
+                        break;
+                    case "--spill":
+                        batch.setSpillDirectory(new File(args[++i]));
+                        break;
+                    case "--macros":
+                        batch.setMacroMoves(true);
+                        break;
+                    case "--format":
+                        batch.setFormat(Format.valueOf(args[++i].toUpperCase()));
+                        break;
+                    default:
+                        path = args[i];
+                }
+            }
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            path = null;
+        }
+        if(path == null) {
+            System.err.println("Usage: java sokoban.Batch [--solver astar|idastar|bidirectional|parallel] [--threads N]");
+            System.err.println("       [--time SECONDS] [--nodes N] [--memory MB] [--spill DIR] [--macros] [--format csv|json] collection.txt");
+            System.exit(2);
+        }
+
+        Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+        batch.run(LevelCollection.open(new File(path)), out);
+    }
+
+    /**
+     * Sets name of Solver used for every Level.
+     * @param solverName one of astar, idastar, bidirectional and parallel
+     * @throws IllegalArgumentException when name is unknown
+     */
+    public void setSolverName(String solverName) {
+        this.solverName = solverName;
+        createSolver();
+    }
+
+    /**
+     * Sets the number of levels solved at once.
+     * @param threads the number of threads
+     */
+    public void setThreads(int threads) {
+        if(threads < 1) {
+            throw new IllegalArgumentException("The number of threads must be positive");
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Sets maximum duration of search of one Level.
+     * @param timeLimit maximum duration in milliseconds; 0 if unlimited
+     */
+    public void setTimeLimit(long timeLimit) {
+        this.timeLimit = timeLimit;
+    }
+
+    /**
+     * Sets maximum number of nodes expanded for one Level. It bounds memory
+     * used by open set.
+     * @param nodesLimit maximum number of nodes; 0 if unlimited
+     */
+    public void setNodesLimit(long nodesLimit) {
+        this.nodesLimit = nodesLimit;
+    }
+
+    /**
+     * Sets memory budget of search of one Level. A quarter of it is given
+     * to table of visited states of A* and IDA* solvers, and search is
+     * stopped with status memory when its sets outgrow the rest.
+     * @param memoryLimit memory budget in bytes; 0 if every search should
+     * get an equal share of the heap
+     */
+    public void setMemoryLimit(long memoryLimit) {
+        this.memoryLimit = memoryLimit;
+    }
+
+    /**
+     * Sets directory to which A* search moves visited states when its table
+     * is full.
+     * @param spillDirectory directory for visited states; null if they
+     * should be kept only in memory
+     */
+    public void setSpillDirectory(File spillDirectory) {
+        this.spillDirectory = spillDirectory;
+    }
+
+    /**
+     * Enables or disables macro moves of A* search.
+     * @param macroMoves true if macro moves should be used; false otherwise
+     */
+    public void setMacroMoves(boolean macroMoves) {
+        this.macroMoves = macroMoves;
+    }
+
+    /**
+     * Sets format of written results.
+     * @param format format of results
+     */
+    public void setFormat(Format format) {
+        this.format = format;
+    }
+
+    /**
+     * Solves every Level of given collection and writes their results.
+     * Levels are numbered from 1.
+     * @param collection collection of levels
+     * @param out writer to which results are written, line by line
+     * @throws IOException when unable to write results
+     */
+    public void run(LevelCollection collection, Writer out) throws IOException {
+        int workers = getWorkersCount();
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        Semaphore permits = new Semaphore(workers * 2);
+        try {
+            if(format == Format.CSV) {
+                write(out, CSV_HEADER);
+            }
+            for(int i = 0; i < collection.size(); i++) {
+                int index = i;
+                permits.acquireUninterruptibly();
+                executor.execute(() -> {
+                    try {
+                        write(out, solve(index + 1, collection, index));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of levels solved at once: the number of threads,
+     * reduced when their memory budgets don't fit in the heap.
+     * @return the number of threads solving levels
+     */
+    private int getWorkersCount() {
+        if(memoryLimit <= 0) {
+            return threads;
+        }
+        long fitting = Runtime.getRuntime().maxMemory() / memoryLimit;
+        return (int) Math.max(1, Math.min(threads, fitting));
+    }
+
+    /**
+     * Returns memory budget of search of one Level.
+     * @return memory budget in bytes
+     */
+    private long getMemoryLimit() {
+        if(memoryLimit > 0) {
+            return memoryLimit;
+        }
+        return Runtime.getRuntime().maxMemory() / threads;
+    }
+
+    /**
+     * Returns memory budget of table of visited states of one Level: a
+     * quarter of memory budget of search, but not more than the default
+     * size when the budget isn't set.
+     * @return memory budget of table in bytes
+     */
+    private long getTableSize() {
+        long tableSize = getMemoryLimit() / 4;
+        return (memoryLimit > 0) ? tableSize : Math.min(tableSize, AStarSolver.DEFAULT_TABLE_SIZE);
+    }
+
+    /**
+     * Parses and solves Level of collection with limits of this Batch. Any
+     * failure of one Level is reported as its status, so it doesn't stop
+     * other levels.
+     * @param number number of Level in collection
+     * @param collection collection of levels
+     * @param index index of Level in collection
+     * @return formatted result
+     */
+    private String solve(int number, LevelCollection collection, int index) {
+        Solver solver = createSolver();
+        solver.setTimeLimit(timeLimit);
+        solver.setNodesLimit(nodesLimit);
+        solver.setMemoryLimit(getMemoryLimit());
+        long startTime = System.currentTimeMillis();
+        String status;
+        Solution solution = null;
+        try {
+            solution = solver.solve(collection.get(index));
+            Statistics statistics = solver.getStatistics();
+            if(solution != null) {
+                status = "solved";
+            } else if(statistics.isMemoryExceeded()) {
+                status = "memory";
+            } else {
+                status = statistics.isAborted() ? "limit" : "unsolvable";
+            }
+        } catch (IllegalArgumentException e) {
+            status = "invalid";
+        } catch (RuntimeException e) {
+            status = "error";
+        }
+        Statistics statistics = solver.getStatistics();
+        long time = System.currentTimeMillis() - startTime;
+        return format(number, status, solution, statistics.getNodesCount(), time);
+    }
+
+    /**
+     * Creates new Solver of configured kind.
+     * @return new Solver
+     * @throws IllegalArgumentException when name of Solver is unknown
+     */
+    private Solver createSolver() {
+        switch(solverName) {
+            case "astar":
+                AStarSolver solver = new AStarSolver(getTableSize(), ReplacementPolicy.CHEAPEST);
+                solver.setMacroMoves(macroMoves);
+                solver.setSpillDirectory(spillDirectory);
+                return solver;
+            case "idastar":
+                return new IdaStarSolver(getTableSize());
+            case "bidirectional":
+                return new BidirectionalSolver();
+            case "parallel":
+                return new ParallelSolver(Math.max(1, Runtime.getRuntime().availableProcessors() / getWorkersCount()));
+            default:
+                throw new IllegalArgumentException("Unknown solver: " + solverName);
+        }
+    }
+
+    /**
+     * Formats result of one Level as a line of CSV or JSON.
+     * @param number number of Level in collection
+     * @param status solved, unsolvable, limit, memory, invalid or error
+     * @param solution found Solution; null if there is none
+     * @param nodes the number of expanded nodes
+     * @param time duration of search in milliseconds
+     * @return formatted result, without line separator
+     */
+    private String format(int number, String status, Solution solution, long nodes, long time) {
+        int pushes = (solution != null) ? solution.getPushesCount() : -1;
+        int moves = (solution != null) ? solution.getMovesCount() : -1;
+        String lurd = (solution != null) ? solution.getMoves() : "";
+        if(format == Format.CSV) {
+            return number + "," + status + "," + pushes + "," + moves + "," + nodes + "," + time + "," + lurd;
+        }
+        return "{\"level\":" + number + ",\"status\":\"" + status + "\",\"pushes\":" + pushes + ",\"moves\":" + moves +
+                ",\"nodes\":" + nodes + ",\"time\":" + time + ",\"solution\":\"" + lurd + "\"}";
+    }
+
+    /**
+     * Writes one line of output and flushes it, so results are visible as
+     * soon as levels are solved.
+     * @param out writer of results
+     * @param line line to be written
+     * @throws IOException when unable to write
+     */
+    private static void write(Writer out, String line) throws IOException {
+        synchronized(out) {
+            out.write(line);
+            out.write('\n');
+            out.flush();
+        }
+    }
+}
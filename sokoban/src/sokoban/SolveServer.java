@@ -0,0 +1,317 @@
+package sokoban;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import sokoban.domain.Level;
+import sokoban.solver.AStarSolver;
+import sokoban.solver.Problem;
+import sokoban.solver.Solution;
+import sokoban.solver.Statistics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Embedded HTTP server solving levels. Level in text format is sent in body
+ * of POST request to /solve, and the result is returned as JSON object with
+ * status, pushes, moves, nodes, time and solution.
+ *
+ * Connections are handled on a cached pool of threads, which mostly wait.
+ * Parsing of levels and searches run on a separate pool with one thread per
+ * processor and a bounded queue, so connections do no heavy work. When the
+ * queue is full, request is rejected at once with status 503, so the server
+ * stays responsive under load. Searches which are no longer awaited are
+ * aborted, as their threads don't check interrupts.
+ *
+ * Usage: java sokoban.SolveServer [port]
+ *
+ * @author Ketom
+ */
+public class SolveServer {
+    /**
+     * Default port of the server.
+     */
+    public static final int DEFAULT_PORT = 8080;
+
+    /**
+     * Default number of searches waiting for a thread.
+     */
+    public static final int DEFAULT_QUEUE_SIZE = 64;
+
+    /**
+     * Default maximum duration of one search in milliseconds.
+     */
+    public static final long DEFAULT_TIME_LIMIT = 10000;
+
+    /**
+     * Maximum size of request body in bytes.
+     */
+    private static final int MAX_BODY_SIZE = 1 << 16;
+
+    /**
+     * Maximum time in seconds for which stopping server waits for responses.
+     */
+    private static final int STOP_DELAY = 1;
+
+    /**
+     * Underlying HTTP server.
+     */
+    private HttpServer server;
+
+    /**
+     * Pool handling connections.
+     */
+    private ExecutorService connections;
+
+    /**
+     * Pool running searches.
+     */
+    private ThreadPoolExecutor searches;
+
+    /**
+     * Tasks submitted and not answered yet.
+     */
+    private Set<SolveTask> tasks = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Maximum duration of one search in milliseconds.
+     */
+    private long timeLimit = DEFAULT_TIME_LIMIT;
+
+    /**
+     * Main method of class.
+     * @param args optional port of the server
+     * @throws IOException when unable to start the server
+     */
+    public static void main(String[] args) throws IOException {
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        SolveServer server = new SolveServer(port, Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_SIZE);
+        server.start();
+        System.err.println("Listening on port " + server.getPort());
+    }
+
+    /**
+     * Constructs SolveServer listening on given port. It must be started.
+     * @param port port of the server; 0 for any free port
+     * @param threads the number of searches running at once
+     * @param queueSize the number of searches waiting for a thread
+     * @throws IOException when unable to bind the port
+     */
+    public SolveServer(int port, int threads, int queueSize) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        connections = Executors.newCachedThreadPool();
+        searches = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize));
+        server.setExecutor(connections);
+        server.createContext("/solve", this::handle);
+    }
+
+    /**
+     * Sets maximum duration of one search.
+     * @param timeLimit maximum duration in milliseconds; 0 if unlimited
+     */
+    public void setTimeLimit(long timeLimit) {
+        this.timeLimit = timeLimit;
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Aborts running searches, shuts down all threads and stops the server.
+     * Requests waiting for searches are answered with status 503 before
+     * their connections are closed.
+     */
+    public void stop() {
+        for(SolveTask task : tasks) {
+            task.abort();
+        }
+        searches.shutdownNow();
+        connections.shutdownNow();
+        server.stop(STOP_DELAY);
+    }
+
+    /**
+     * Returns port on which the server listens.
+     * @return port of the server
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Handles one request to /solve.
+     * @param exchange request and response
+     * @throws IOException when unable to read request or write response
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if(!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, error("Use POST with level in body"));
+                return;
+            }
+            byte[] body = readBody(exchange.getRequestBody());
+            if(body == null) {
+                respond(exchange, 413, error("Level is too big"));
+                return;
+            }
+            SolveTask task = new SolveTask(body);
+            tasks.add(task);
+            Future<String> result;
+            try {
+                result = searches.submit(task);
+            } catch (RejectedExecutionException e) {
+                tasks.remove(task);
+                respond(exchange, 503, error("Server is busy"));
+                return;
+            }
+            try {
+                respond(exchange, 200, result.get());
+            } catch (ExecutionException e) {
+                if(e.getCause() instanceof IllegalArgumentException) {
+                    respond(exchange, 400, error(e.getCause().getMessage()));
+                } else {
+                    respond(exchange, 500, error(String.valueOf(e.getCause())));
+                }
+            } catch (InterruptedException e) {
+                task.abort();
+                result.cancel(true);
+                try {
+                    respond(exchange, 503, error("Server is stopping"));
+                } finally {
+                    Thread.currentThread().interrupt();
+                }
+            } finally {
+                tasks.remove(task);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Task parsing and solving one Level. Its Solver exists from the start,
+     * so it can be aborted before the search begins.
+     */
+    private class SolveTask implements Callable<String> {
+        /**
+         * Body of request with Level in text format.
+         */
+        private byte[] body;
+
+        /**
+         * Solver of Level.
+         */
+        private AStarSolver solver = new AStarSolver();
+
+        /**
+         * Constructs task solving Level sent in given body of request.
+         * @param body body of request
+         */
+        private SolveTask(byte[] body) {
+            this.body = body;
+            solver.setTimeLimit(timeLimit);
+        }
+
+        /**
+         * Aborts search of this task, whether it's running or not started
+         * yet.
+         */
+        private void abort() {
+            solver.abort();
+        }
+
+        /**
+         * Parses and solves Level.
+         * @return result as JSON object
+         * @throws IllegalArgumentException when Level is invalid
+         */
+        @Override
+        public String call() {
+            Problem problem = new Problem(Level.fromBytes(body));
+            Solution solution = solver.solve(problem);
+            Statistics statistics = solver.getStatistics();
+            String status;
+            if(solution != null) {
+                status = "solved";
+            } else {
+                status = statistics.isAborted() ? "limit" : "unsolvable";
+            }
+            return "{\"status\":\"" + status + "\"" +
+                    ",\"pushes\":" + ((solution != null) ? solution.getPushesCount() : -1) +
+                    ",\"moves\":" + ((solution != null) ? solution.getMovesCount() : -1) +
+                    ",\"nodes\":" + statistics.getNodesCount() +
+                    ",\"time\":" + statistics.getElapsedTime() +
+                    ",\"solution\":\"" + ((solution != null) ? solution.getMoves() : "") + "\"}";
+        }
+    }
+
+    /**
+     * Reads body of request, up to maximum size.
+     * @param in stream of body
+     * @return bytes of body; null if body is too big
+     * @throws IOException when unable to read body
+     */
+    private static byte[] readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        for(int count = in.read(buffer); count != -1; count = in.read(buffer)) {
+            body.write(buffer, 0, count);
+            if(body.size() > MAX_BODY_SIZE) {
+                return null;
+            }
+        }
+        return body.toByteArray();
+    }
+
+    /**
+     * Creates JSON object describing error.
+     * @param message message of error
+     * @return error as JSON object
+     */
+    private static String error(String message) {
+        StringBuilder json = new StringBuilder("{\"status\":\"error\",\"message\":\"");
+        for(char c : message.toCharArray()) {
+            if(c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if(c >= ' ') {
+                json.append(c);
+            }
+        }
+        return json.append("\"}").toString();
+    }
+
+    /**
+     * Sends response with JSON body.
+     * @param exchange request and response
+     * @param code HTTP status code
+     * @param json body of response
+     * @throws IOException when unable to write response
+     */
+    private static void respond(HttpExchange exchange, int code, String json) throws IOException {
+        byte[] bytes = (json + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(code, bytes.length);
+        try(OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package sokoban.controllers;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.Pane;
@@ -11,10 +12,14 @@ import sokoban.domain.Direction;
 import sokoban.Game;
 import sokoban.domain.Level;
 import sokoban.domain.Mode;
+import sokoban.engine.Engine;
 import sokoban.logic.PlayingBoard;
+import sokoban.solver.HintService;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static sokoban.domain.Direction.*;
 
@@ -43,6 +48,18 @@ public class PlayingController extends Controller {
     @FXML
     private Text boxesMovesCountText;
 
+    /**
+     * Pane containing information that the game can't be won anymore.
+     */
+    @FXML
+    private Pane deadlockPane;
+
+    /**
+     * Text label displaying the last hint.
+     */
+    @FXML
+    private Text hintText;
+
     /**
      * Overlay Pane containing containing information about the end of the game.
      */
@@ -64,6 +81,32 @@ public class PlayingController extends Controller {
      */
     private File lastDirectory;
 
+    /**
+     * HintService of current Level.
+     */
+    private HintService hintService;
+
+    /**
+     * Background thread on which hints are searched, so the game doesn't
+     * freeze.
+     */
+    private ExecutorService hintExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "hint");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Whether a hint is being searched for.
+     */
+    private boolean hintPending;
+
+    /**
+     * Whether hint was requested again while other hint was being searched
+     * for.
+     */
+    private boolean hintRequested;
+
     /**
      * Constructs PlayerController associated with given Game. Appropriate scene
      * with given width and height is created and linked with this new
@@ -109,6 +152,7 @@ public class PlayingController extends Controller {
      */
     private void resetPlayingBoard(Level newLevel) {
         lastLevel = newLevel;
+        hintService = null;
         resetPlayingBoard();
     }
 
@@ -124,6 +168,9 @@ public class PlayingController extends Controller {
         mainPane.getChildren().remove(playingBoard);
         playingBoard = new PlayingBoard(level);
         mainPane.getChildren().add(0, playingBoard);
+        if (hintService == null) {
+            hintService = new HintService();
+        }
         update();
     }
 
@@ -162,6 +209,9 @@ public class PlayingController extends Controller {
             case R:
                 resetPlayingBoard(null);
                 break;
+            case H:
+                showHint();
+                break;
         }
         if (!playingBoard.isWinConditionFulfilled() && direction != null) {
             playingBoard.movePlayer(direction);
@@ -175,11 +225,55 @@ public class PlayingController extends Controller {
     private void update() {
         playerMovesCountText.setText("Number of moves: " + playingBoard.getPlayerMovesCount());
         boxesMovesCountText.setText("Box move count: " + playingBoard.getBoxesMovesCount());
+        hintText.setText(" ");
         if (playingBoard.isWinConditionFulfilled()) {
             overlayPane.setVisible(true);
         } else {
             overlayPane.setVisible(false);
         }
+        deadlockPane.setVisible(playingBoard.isDeadlocked() && !playingBoard.isWinConditionFulfilled());
+    }
+
+    /**
+     * Searches for hint on background thread and displays it, unless the
+     * player has moved in the meantime. Only one hint is searched for at
+     * once: requests made meanwhile are merged into one, which is searched
+     * for after the current one, and only if the position has changed.
+     */
+    private void showHint() {
+        if (playingBoard.isWinConditionFulfilled()) {
+            return;
+        }
+        if (hintPending) {
+            hintRequested = true;
+            hintText.setText("Hint: thinking...");
+            return;
+        }
+        hintPending = true;
+        PlayingBoard board = playingBoard;
+        int movesCount = board.getPlayerMovesCount();
+        Engine engine = new Engine(board.getEngine());
+        HintService service = hintService;
+        hintText.setText("Hint: thinking...");
+        hintExecutor.execute(() -> {
+            String hint;
+            try {
+                hint = service.findHint(engine);
+            } catch (RuntimeException e) {
+                hint = null;
+            }
+            String result = hint;
+            Platform.runLater(() -> {
+                boolean requested = hintRequested;
+                hintPending = false;
+                hintRequested = false;
+                if (board == playingBoard && movesCount == board.getPlayerMovesCount()) {
+                    hintText.setText((result != null) ? "Hint: " + result : "Hint: no solution");
+                } else if (requested) {
+                    showHint();
+                }
+            });
+        });
     }
 
     /**
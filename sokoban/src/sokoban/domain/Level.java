@@ -2,10 +2,10 @@ package sokoban.domain;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * Level of game, being 2D array of bytes.
@@ -25,9 +25,59 @@ public class Level {
     public static final byte TILE = ' ';
 
     /**
-     * The bytes of which this Level consist.
+     * Bytes to which bytes of input are converted while parsing: characters
+     * of entities are kept and any other character becomes TILE.
      */
-    private byte[][] bytes;
+    private static final byte[] PARSED = new byte[256];
+
+    static {
+        for(int i = 0; i < PARSED.length; i++) {
+            PARSED[i] = TILE;
+        }
+        for(byte b : new byte[]{WALL, PLAYER, PLAYER_ON_SPOT, BOX, BOX_ON_SPOT, SPOT}) {
+            PARSED[b] = b;
+        }
+    }
+
+    /**
+     * Maximum length of run-length encoded notation after expanding its
+     * groups.
+     */
+    private static final int MAX_EXPANDED_LENGTH = 1 << 24;
+
+    /**
+     * Magic number at the start of binary form of Level.
+     */
+    private static final int BINARY_MAGIC = 0x534b4201;
+
+    /**
+     * Size of header of binary form: magic number, width, height and hash.
+     */
+    private static final int BINARY_HEADER_SIZE = 16;
+
+    /**
+     * Bytes of cells for every 3-bit code of binary form. Code 0 is padding
+     * outside of level.
+     */
+    private static final byte[] DECODED = {0, WALL, PLAYER, PLAYER_ON_SPOT, BOX, BOX_ON_SPOT, SPOT, TILE};
+
+    /**
+     * 3-bit codes of binary form for every byte of cell. Unknown bytes are
+     * encoded as TILE.
+     */
+    private static final byte[] ENCODED = new byte[256];
+
+    static {
+        Arrays.fill(ENCODED, (byte) 7);
+        for(int i = 0; i < DECODED.length; i++) {
+            ENCODED[DECODED[i] & 0xFF] = (byte) i;
+        }
+    }
+
+    /**
+     * The bytes of which this Level consist, row after row.
+     */
+    private byte[] bytes;
 
     /**
      * The width of this Level.
@@ -45,15 +95,11 @@ public class Level {
      * @param height height of level
      */
     public Level(int width, int height) {
-        this.bytes = new byte[width][height];
+        this.bytes = new byte[width * height];
         this.width = width;
         this.height = height;
 
-        for(int y = 0; y < height; y++) {
-            for(int x = 0; x < width; x++) {
-                this.bytes[x][y] = TILE;
-            }
-        }
+        Arrays.fill(this.bytes, TILE);
     }
 
     /**
@@ -63,17 +109,29 @@ public class Level {
      * @param bytes bytes of which new Level will consist
      */
     public Level(int width, int height, byte[][] bytes) {
-        this.bytes = new byte[width][height];
+        this.bytes = new byte[width * height];
         this.width = width;
         this.height = height;
 
         for(int y = 0; y < height; y++) {
             for(int x = 0; x < width; x++) {
-                this.bytes[x][y] = bytes[x][y];
+                this.bytes[y * width + x] = bytes[x][y];
             }
         }
     }
 
+    /**
+     * Constructs Level taking ownership of given bytes, without copying.
+     * @param bytes bytes of new Level, row after row
+     * @param width width of new level
+     * @param height height of new level
+     */
+    private Level(byte[] bytes, int width, int height) {
+        this.bytes = bytes;
+        this.width = width;
+        this.height = height;
+    }
+
     /**
      * Constructs Level from bytes read from File.
      * @param file The file from which new Level should be loaded.
@@ -81,7 +139,11 @@ public class Level {
      * @throws IOException throws IOException when unable to read file
      */
     static public Level fromFile(File file) throws IOException {
-        return fromBytes(Files.readAllBytes(file.toPath()));
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        if(isBinary(bytes)) {
+            return fromBinary(bytes);
+        }
+        return fromBytes(bytes);
     }
 
     /**
@@ -99,62 +161,312 @@ public class Level {
      * @return New Level constructed from given bytes.
      */
     static public Level fromBytes(byte[] bytes) {
-        int maxLineWidth = 0;
-        int currentLineWidth = 0;
-        List<List<Byte>> outerList = new ArrayList<>();
-        List<Byte> innerList = new ArrayList<>();
-        outerList.add(innerList);
+        return fromBytes(bytes, 0, bytes.length);
+    }
 
-        for (Byte b : bytes) {
-            switch (b) {
-                case '\n':
-                    innerList = new ArrayList<>();
-                    outerList.add(innerList);
-                    if (maxLineWidth < currentLineWidth) {
-                        maxLineWidth = currentLineWidth;
-                    }
-                    currentLineWidth = 0;
-                    continue;
+    /**
+     * Constructs Level from a range of bytes. Lines are separated by '\n',
+     * '\r' is ignored, unknown characters become TILE and lines shorter than
+     * the longest one are padded with 0.
+     * @param bytes The bytes from which new Level should be created.
+     * @param offset index of the first byte of Level
+     * @param length the number of bytes of Level
+     * @return New Level constructed from given bytes.
+     */
+    static public Level fromBytes(byte[] bytes, int offset, int length) {
+        return fromBuffer(ByteBuffer.wrap(bytes), offset, length);
+    }
 
-                case '\r':
-                    continue;
+    /**
+     * Constructs Level from bytes between position and limit of buffer,
+     * which may be direct or memory mapped. Position of buffer isn't
+     * changed.
+     * @param buffer The buffer from which new Level should be created.
+     * @return New Level constructed from bytes of buffer.
+     */
+    static public Level fromBuffer(ByteBuffer buffer) {
+        return fromBuffer(buffer, buffer.position(), buffer.remaining());
+    }
 
-                case WALL:
-                case PLAYER:
-                case PLAYER_ON_SPOT:
-                case BOX:
-                case BOX_ON_SPOT:
-                case SPOT:
-                case TILE:
-                    break;
+    /**
+     * Constructs Level from a range of bytes of buffer. Position and limit
+     * of buffer aren't used nor changed.
+     *
+     * Input is scanned twice: the first pass finds the number and width of
+     * lines, so the grid is allocated once with its final size, and the
+     * second pass writes bytes straight into it.
+     * @param buffer The buffer from which new Level should be created.
+     * @param offset index of the first byte of Level
+     * @param length the number of bytes of Level
+     * @return New Level constructed from bytes of buffer.
+     */
+    static public Level fromBuffer(ByteBuffer buffer, int offset, int length) {
+        int start = offset;
+        int end = offset + length;
 
-                default:
-                    b = TILE;
+        int width = 0;
+        int height = 1;
+        int lineWidth = 0;
+        for(int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if(b == '\n') {
+                width = Math.max(width, lineWidth);
+                lineWidth = 0;
+                height++;
+            } else if(b != '\r') {
+                lineWidth++;
             }
-            innerList.add(b);
-            currentLineWidth++;
         }
-        if(maxLineWidth < currentLineWidth) {
-            maxLineWidth = currentLineWidth;
+        width = Math.max(width, lineWidth);
+        if(lineWidth == 0) {
+            height--;
         }
 
-        if(outerList.get(outerList.size() - 1).size() == 0) {
-            outerList.remove(outerList.size() - 1);
+        byte[] result = new byte[width * height];
+        int index = 0;
+        int lineStart = 0;
+        for(int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if(b == '\n') {
+                lineStart += width;
+                index = lineStart;
+            } else if(b != '\r') {
+                result[index++] = PARSED[b & 0xFF];
+            }
         }
 
-        int width = maxLineWidth;
-        int height = outerList.size();
-        byte[][] result = new byte[width][height];
+        return new Level(result, width, height);
+    }
 
-        for(int y = 0; y < height; y++) {
-            innerList = outerList.get(y);
-            for(int x = 0; x < width; x++) {
-                Byte b = (x < innerList.size()) ? innerList.get(x) : null;
-                result[x][y] = (b != null) ? b : 0;
+    /**
+     * Checks if bytes start with header of binary form of Level.
+     * @param bytes examined bytes
+     * @return true if bytes are binary form of Level; false otherwise.
+     */
+    static public boolean isBinary(byte[] bytes) {
+        return bytes.length >= BINARY_HEADER_SIZE && ByteBuffer.wrap(bytes).getInt(0) == BINARY_MAGIC;
+    }
+
+    /**
+     * Constructs Level from its binary form, created by toBinary().
+     * @param bytes The bytes of binary form.
+     * @return New Level constructed from binary form.
+     * @throws IllegalArgumentException when bytes aren't valid binary form
+     */
+    static public Level fromBinary(byte[] bytes) {
+        return fromBinary(ByteBuffer.wrap(bytes), 0);
+    }
+
+    /**
+     * Constructs Level from binary form stored in buffer at given offset.
+     * Position of buffer isn't used nor changed.
+     * @param buffer The buffer containing binary form.
+     * @param offset index of the first byte of binary form
+     * @return New Level constructed from binary form.
+     * @throws IllegalArgumentException when bytes aren't valid binary form
+     */
+    static public Level fromBinary(ByteBuffer buffer, int offset) {
+        if(buffer.limit() - offset < BINARY_HEADER_SIZE || buffer.getInt(offset) != BINARY_MAGIC) {
+            throw new IllegalArgumentException("Not a binary level");
+        }
+        int width = buffer.getShort(offset + 4) & 0xFFFF;
+        int height = buffer.getShort(offset + 6) & 0xFFFF;
+        long hash = buffer.getLong(offset + 8);
+        long cellsCount = (long) width * height;
+        if(buffer.limit() - offset - BINARY_HEADER_SIZE < (cellsCount * 3 + 7) / 8) {
+            throw new IllegalArgumentException("Binary level is truncated");
+        }
+
+        byte[] result = new byte[(int) cellsCount];
+        int position = offset + BINARY_HEADER_SIZE;
+        int bits = 0;
+        int bitsCount = 0;
+        for(int i = 0; i < result.length; i++) {
+            if(bitsCount < 3) {
+                bits |= (buffer.get(position++) & 0xFF) << bitsCount;
+                bitsCount += 8;
+            }
+            result[i] = DECODED[bits & 7];
+            bits >>>= 3;
+            bitsCount -= 3;
+        }
+
+        Level level = new Level(result, width, height);
+        if(level.getHash() != hash) {
+            throw new IllegalArgumentException("Binary level is corrupted");
+        }
+        return level;
+    }
+
+    /**
+     * Constructs Level from run-length encoded notation, such as
+     * "5#|#@$.#|5#". A number repeats the character following it, rows are
+     * separated by '|' or new lines, and both '-' and '_' are empty cells.
+     * Letters 'p', 'P', 'b' and 'B', used in URLs, are the player, the player
+     * on spot, the box and the box on spot. A number before parenthesised
+     * group, such as "3(#-)", repeats the whole group, and groups may be
+     * nested. Other characters are read as in text form.
+     *
+     * Runs are decoded straight into the grid: the first pass finds the
+     * number and width of rows and the second one writes cells, so expanded
+     * text is never built.
+     * @param rle Level in run-length encoded notation
+     * @return New Level constructed from notation.
+     * @throws IllegalArgumentException when notation has unknown characters
+     * or unmatched parentheses, or decoded Level would be too big
+     */
+    static public Level fromRle(CharSequence rle) {
+        rle = expandGroups(rle);
+        long width = 0;
+        long height = 1;
+        long rowWidth = 0;
+        long count = 0;
+        for(int i = 0; i < rle.length(); i++) {
+            char c = rle.charAt(i);
+            if(c >= '0' && c <= '9') {
+                count = Math.min(count * 10 + (c - '0'), Integer.MAX_VALUE);
+            } else if(c == '|' || c == '\n') {
+                width = Math.max(width, rowWidth);
+                rowWidth = 0;
+                height += Math.max(count, 1);
+                count = 0;
+            } else if(c != '\r') {
+                parseRle(c, i);
+                rowWidth += Math.max(count, 1);
+                count = 0;
+            }
+        }
+        width = Math.max(width, rowWidth);
+        if(rowWidth == 0) {
+            height--;
+        }
+        if(width * height > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Level is too big");
+        }
+
+        byte[] result = new byte[(int) (width * height)];
+        int index = 0;
+        int rowStart = 0;
+        int run = 0;
+        for(int i = 0; i < rle.length(); i++) {
+            char c = rle.charAt(i);
+            if(c >= '0' && c <= '9') {
+                run = (int) Math.min(run * 10L + (c - '0'), Integer.MAX_VALUE);
+            } else if(c == '|' || c == '\n') {
+                rowStart += (int) width * Math.max(run, 1);
+                index = rowStart;
+                run = 0;
+            } else if(c != '\r') {
+                byte b = parseRle(c, i);
+                int end = index + Math.max(run, 1);
+                Arrays.fill(result, index, end, b);
+                index = end;
+                run = 0;
             }
         }
 
-        return new Level(width, height, result);
+        return new Level(result, (int) width, (int) height);
+    }
+
+    /**
+     * Expands parenthesised groups of run-length encoded notation, so only
+     * single characters are repeated.
+     * @param rle Level in run-length encoded notation
+     * @return notation without groups; the same notation if it has none
+     * @throws IllegalArgumentException when parentheses are unmatched or
+     * expanded notation would be too long
+     */
+    private static CharSequence expandGroups(CharSequence rle) {
+        String string = rle.toString();
+        if(string.indexOf('(') == -1 && string.indexOf(')') == -1) {
+            return rle;
+        }
+        StringBuilder expanded = new StringBuilder();
+        int end = expandGroups(string, 0, expanded);
+        if(end != string.length()) {
+            throw new IllegalArgumentException("Unmatched ')' at " + end);
+        }
+        return expanded;
+    }
+
+    /**
+     * Expands notation from given index up to the end of group.
+     * @param rle Level in run-length encoded notation
+     * @param start index of the first character of group
+     * @param expanded builder to which expanded notation is appended
+     * @return index of ')' closing the group; length of notation if there is
+     * no such ')'
+     * @throws IllegalArgumentException when parentheses are unmatched or
+     * expanded notation would be too long
+     */
+    private static int expandGroups(String rle, int start, StringBuilder expanded) {
+        long count = 0;
+        for(int i = start; i < rle.length(); i++) {
+            char c = rle.charAt(i);
+            if(c >= '0' && c <= '9') {
+                count = Math.min(count * 10 + (c - '0'), Integer.MAX_VALUE);
+            } else if(c == '(') {
+                int groupStart = expanded.length();
+                int end = expandGroups(rle, i + 1, expanded);
+                if(end == rle.length()) {
+                    throw new IllegalArgumentException("Unmatched '(' at " + i);
+                }
+                int groupEnd = expanded.length();
+                if(groupEnd + (Math.max(count, 1) - 1) * (groupEnd - groupStart) > MAX_EXPANDED_LENGTH) {
+                    throw new IllegalArgumentException("Level is too big");
+                }
+                for(long j = 1; j < count; j++) {
+                    expanded.append(expanded, groupStart, groupEnd);
+                }
+                i = end;
+                count = 0;
+            } else if(c == ')') {
+                return i;
+            } else {
+                if(count > 0) {
+                    expanded.append(count);
+                }
+                expanded.append(c);
+                count = 0;
+            }
+        }
+        if(count > 0) {
+            expanded.append(count);
+        }
+        return rle.length();
+    }
+
+    /**
+     * Converts character of run-length encoded notation to byte of cell.
+     * @param c character of notation, other than digit or row separator
+     * @param index index of character in notation
+     * @return byte of cell
+     * @throws IllegalArgumentException when character is unknown
+     */
+    private static byte parseRle(char c, int index) {
+        switch(c) {
+            case '-':
+            case '_':
+            case ' ':
+                return TILE;
+            case 'p':
+                return PLAYER;
+            case 'P':
+                return PLAYER_ON_SPOT;
+            case 'b':
+                return BOX;
+            case 'B':
+                return BOX_ON_SPOT;
+            case WALL:
+            case PLAYER:
+            case PLAYER_ON_SPOT:
+            case BOX:
+            case BOX_ON_SPOT:
+            case SPOT:
+                return (byte) c;
+            default:
+                throw new IllegalArgumentException("Invalid character '" + c + "' at " + index);
+        }
     }
 
     /**
@@ -179,7 +491,7 @@ public class Level {
      * @return byte located at given (x, y) coordinates
      */
     public byte get(int x, int y) {
-        return bytes[x][y];
+        return bytes[y * width + x];
     }
 
     /**
@@ -198,6 +510,194 @@ public class Level {
         return height;
     }
 
+    /**
+     * Returns hash of this Level: 64-bit FNV-1a hash of its width, height and
+     * cells, stored in binary form to detect corrupted data. Unknown bytes
+     * are hashed as TILE, as they are stored in binary form.
+     * @return hash of this Level
+     */
+    public long getHash() {
+        long hash = 0xcbf29ce484222325L;
+        hash = (hash ^ width) * 0x100000001b3L;
+        hash = (hash ^ height) * 0x100000001b3L;
+        for(byte b : bytes) {
+            hash = (hash ^ (DECODED[ENCODED[b & 0xFF]] & 0xFF)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Returns copy of this Level without cells outside of its walls. Empty
+     * cells which can be reached from the border without crossing a wall
+     * become padding, and rows and columns consisting only of padding are
+     * removed.
+     * @return New trimmed Level
+     */
+    public Level trim() {
+        byte[] trimmed = bytes.clone();
+        boolean[] visited = new boolean[trimmed.length];
+        int[] stack = new int[trimmed.length];
+        int stackSize = 0;
+        for(int y = 0; y < height; y++) {
+            for(int x = 0; x < width; x++) {
+                if(x == 0 || y == 0 || x == width - 1 || y == height - 1) {
+                    stackSize = visitOutside(trimmed, visited, stack, stackSize, y * width + x);
+                }
+            }
+        }
+        while(stackSize > 0) {
+            int cell = stack[--stackSize];
+            int x = cell % width;
+            if(x > 0) {
+                stackSize = visitOutside(trimmed, visited, stack, stackSize, cell - 1);
+            }
+            if(x < width - 1) {
+                stackSize = visitOutside(trimmed, visited, stack, stackSize, cell + 1);
+            }
+            if(cell >= width) {
+                stackSize = visitOutside(trimmed, visited, stack, stackSize, cell - width);
+            }
+            if(cell + width < trimmed.length) {
+                stackSize = visitOutside(trimmed, visited, stack, stackSize, cell + width);
+            }
+        }
+
+        int minX = width;
+        int maxX = -1;
+        int minY = height;
+        int maxY = -1;
+        for(int y = 0; y < height; y++) {
+            for(int x = 0; x < width; x++) {
+                if(trimmed[y * width + x] != 0) {
+                    minX = Math.min(minX, x);
+                    maxX = Math.max(maxX, x);
+                    minY = Math.min(minY, y);
+                    maxY = Math.max(maxY, y);
+                }
+            }
+        }
+        if(maxX == -1) {
+            return new Level(new byte[0], 0, 0);
+        }
+
+        int newWidth = maxX - minX + 1;
+        int newHeight = maxY - minY + 1;
+        byte[] result = new byte[newWidth * newHeight];
+        for(int y = 0; y < newHeight; y++) {
+            System.arraycopy(trimmed, (y + minY) * width + minX, result, y * newWidth, newWidth);
+        }
+        return new Level(result, newWidth, newHeight);
+    }
+
+    /**
+     * Marks empty cell as outside of level and pushes it on stack, unless
+     * it was already visited.
+     * @param cells cells of level
+     * @param visited which cells were already visited
+     * @param stack stack of cells to be visited
+     * @param stackSize the number of cells on stack
+     * @param cell index of cell
+     * @return new number of cells on stack
+     */
+    private static int visitOutside(byte[] cells, boolean[] visited, int[] stack, int stackSize, int cell) {
+        if(visited[cell] || (cells[cell] != TILE && cells[cell] != 0)) {
+            return stackSize;
+        }
+        visited[cell] = true;
+        cells[cell] = 0;
+        stack[stackSize] = cell;
+        return stackSize + 1;
+    }
+
+    /**
+     * Returns binary form of this Level: header with magic number, width,
+     * height and hash, followed by 3-bit codes of cells, row after row.
+     * @return bytes of binary form
+     * @throws IllegalStateException when Level is wider or higher than 65535
+     */
+    public byte[] toBinary() {
+        if(width > 0xFFFF || height > 0xFFFF) {
+            throw new IllegalStateException("Level is too big for binary form");
+        }
+        byte[] binary = new byte[BINARY_HEADER_SIZE + (bytes.length * 3 + 7) / 8];
+        ByteBuffer header = ByteBuffer.wrap(binary);
+        header.putInt(0, BINARY_MAGIC);
+        header.putShort(4, (short) width);
+        header.putShort(6, (short) height);
+        header.putLong(8, getHash());
+
+        int position = BINARY_HEADER_SIZE;
+        int bits = 0;
+        int bitsCount = 0;
+        for(byte b : bytes) {
+            bits |= ENCODED[b & 0xFF] << bitsCount;
+            bitsCount += 3;
+            if(bitsCount >= 8) {
+                binary[position++] = (byte) bits;
+                bits >>>= 8;
+                bitsCount -= 8;
+            }
+        }
+        if(bitsCount > 0) {
+            binary[position] = (byte) bits;
+        }
+        return binary;
+    }
+
+    /**
+     * Returns run-length encoded notation of this Level. Rows are separated
+     * by '|', empty cells are written as '-' and empty cells at the end of
+     * rows are omitted, except in the last row, which keeps width and height
+     * of Level when they end with empty cells.
+     * @return Level in run-length encoded notation
+     */
+    public String toRle() {
+        StringBuilder rle = new StringBuilder();
+        for(int y = 0; y < height; y++) {
+            if(y > 0) {
+                rle.append('|');
+            }
+            int rowStart = y * width;
+            int rowEnd = rowStart + width;
+            while(y < height - 1 && rowEnd > rowStart && (bytes[rowEnd - 1] == TILE || bytes[rowEnd - 1] == 0)) {
+                rowEnd--;
+            }
+            for(int i = rowStart; i < rowEnd; ) {
+                byte b = bytes[i];
+                int run = 1;
+                while(i + run < rowEnd && isSameRle(bytes[i + run], b)) {
+                    run++;
+                }
+                if(run > 1) {
+                    rle.append(run);
+                }
+                rle.append((b == TILE || b == 0) ? '-' : (char) b);
+                i += run;
+            }
+        }
+        return rle.toString();
+    }
+
+    /**
+     * Checks if two cells are written with the same character in run-length
+     * encoded notation.
+     * @param a the first cell
+     * @param b the second cell
+     * @return true if cells have the same character; false otherwise.
+     */
+    private static boolean isSameRle(byte a, byte b) {
+        return a == b || ((a == TILE || a == 0) && (b == TILE || b == 0));
+    }
+
+    /**
+     * Saves Level to File in binary form. It can be loaded by fromFile().
+     * @param file The file to which this Level should be saved.
+     * @throws IOException throws IOException when unable to write file
+     */
+    public void toBinaryFile(File file) throws IOException {
+        Files.write(file.toPath(), toBinary());
+    }
+
     /**
      * Saves Level to File
      * @param file The file to which this Level should be saved.
@@ -206,9 +706,7 @@ public class Level {
     public void toFile(File file) throws IOException {
         byte[] bytes = new byte[height * (width + 1)];
         for(int y = 0; y < height; y++) {
-            for(int x = 0; x < width; x++) {
-                bytes[y * (width + 1) + x] = this.bytes[x][y];
-            }
+            System.arraycopy(this.bytes, y * width, bytes, y * (width + 1), width);
             bytes[y * (width + 1) + width] = '\n';
         }
         Files.write(file.toPath(), bytes);
@@ -0,0 +1,603 @@
+package sokoban.domain;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Collection of levels stored in one file, as in common level packs: boards
+ * separated by empty lines, comments starting with ';' and metadata lines
+ * such as "Title: name" following the board.
+ *
+ * Collection keeps an index with one record of fixed size per Level:
+ * offset and length of its board and title, its width, height, the number
+ * of boxes and hash of its board. Levels are parsed lazily, when they are
+ * requested by get(), so opening a pack costs one pass over its bytes and a
+ * few bytes per level.
+ *
+ * Packs opened by open() are memory mapped, and their index is saved next
+ * to them in a file with ".idx" suffix. When the pack is opened again, the
+ * index file is mapped as well, so opening a pack and jumping to any Level
+ * takes the same time whatever the size of pack. Index file is rebuilt when
+ * size or modification time of pack changes. As pack can be edited without
+ * changing them, get() also compares board of Level with hash in its record
+ * before parsing it, and rebuilds the index when they don't match.
+ *
+ * Title of a Level is taken from "Title:" line after its board, or from the
+ * first comment before its board when there is no such line.
+ *
+ * @author Ketom
+ */
+public class LevelCollection {
+    /**
+     * Suffix of index file of a pack.
+     */
+    public static final String INDEX_SUFFIX = ".idx";
+
+    /**
+     * Prefix of line with title of Level.
+     */
+    private static final String TITLE_PREFIX = "Title:";
+
+    /**
+     * Magic number at the start of index file.
+     */
+    private static final int MAGIC = 0x534b4958;
+
+    /**
+     * Version of format of index file.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Size of header of index: magic number, version, the number of levels,
+     * unused int, size and modification time of pack.
+     */
+    private static final int HEADER_SIZE = 32;
+
+    /**
+     * Size of record of one Level in index.
+     */
+    private static final int RECORD_SIZE = 32;
+
+    /**
+     * Offsets of fields in record: offset and length of board, offset and
+     * length of title, width, height, the number of boxes and hash.
+     */
+    private static final int OFFSET = 0;
+    private static final int LENGTH = 4;
+    private static final int TITLE_OFFSET = 8;
+    private static final int TITLE_LENGTH = 12;
+    private static final int WIDTH = 16;
+    private static final int HEIGHT = 18;
+    private static final int BOXES = 20;
+    private static final int HASH = 24;
+
+    /**
+     * Offset basis of FNV-1a hash.
+     */
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+    /**
+     * Prime of FNV-1a hash.
+     */
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Bytes of the whole collection.
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * Header followed by records of all levels. It's replaced as a whole
+     * when the index is rebuilt.
+     */
+    private volatile ByteBuffer index;
+
+    /**
+     * The number of levels added to the index by scan.
+     */
+    private int size;
+
+    /**
+     * The file of pack; null if collection isn't opened from a file.
+     */
+    private File file;
+
+    /**
+     * Constructs LevelCollection from bytes between position and limit of
+     * buffer. Buffer is scanned once and kept, so it must not be changed.
+     * @param buffer bytes of collection
+     */
+    public LevelCollection(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.index = ByteBuffer.allocate(HEADER_SIZE + 16 * RECORD_SIZE);
+        scan(buffer.position(), buffer.limit());
+        index.putInt(0, MAGIC);
+        index.putInt(4, VERSION);
+        index.putInt(8, size);
+    }
+
+    /**
+     * Constructs LevelCollection with existing index.
+     * @param buffer bytes of collection
+     * @param index header and records of levels
+     */
+    private LevelCollection(ByteBuffer buffer, ByteBuffer index) {
+        this.buffer = buffer;
+        this.index = index;
+    }
+
+    /**
+     * Opens pack File, mapping it to memory. Index of pack is mapped from
+     * index file when it's valid; otherwise pack is scanned and index file
+     * is written.
+     * @param file The file of pack.
+     * @return New LevelCollection with levels of pack.
+     * @throws IOException throws IOException when unable to read pack
+     */
+    static public LevelCollection open(File file) throws IOException {
+        ByteBuffer buffer = map(file);
+        File indexFile = getIndexFile(file);
+        if(indexFile.isFile()) {
+            ByteBuffer index = map(indexFile);
+            if(isValidIndex(index, file)) {
+                LevelCollection collection = new LevelCollection(buffer, index);
+                collection.file = file;
+                return collection;
+            }
+        }
+
+        LevelCollection collection = new LevelCollection(buffer);
+        collection.file = file;
+        collection.saveIndex();
+        return collection;
+    }
+
+    /**
+     * Constructs LevelCollection from File, reading it to memory. Index file
+     * isn't used.
+     * @param file The file from which collection should be loaded.
+     * @return New LevelCollection with levels of file.
+     * @throws IOException throws IOException when unable to read file
+     */
+    static public LevelCollection fromFile(File file) throws IOException {
+        return fromBytes(Files.readAllBytes(file.toPath()));
+    }
+
+    /**
+     * Constructs LevelCollection from bytes in string.
+     * @param string The string from which collection should be loaded.
+     * @return New LevelCollection with levels of string.
+     */
+    static public LevelCollection fromString(String string) {
+        return fromBytes(string.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Constructs LevelCollection from bytes.
+     * @param bytes The bytes from which collection should be loaded.
+     * @return New LevelCollection with levels of bytes.
+     */
+    static public LevelCollection fromBytes(byte[] bytes) {
+        return new LevelCollection(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Returns index file of given pack.
+     * @param file The file of pack.
+     * @return index file next to pack
+     */
+    public static File getIndexFile(File file) {
+        return new File(file.getPath() + INDEX_SUFFIX);
+    }
+
+    /**
+     * Returns the number of levels in this collection.
+     * @return the number of levels
+     */
+    public int size() {
+        return index.getInt(8);
+    }
+
+    /**
+     * Parses Level with given index. When its board doesn't match hash in
+     * its record, the index is stale, so it's rebuilt first.
+     * @param index index of Level, from 0
+     * @return New Level
+     * @throws IndexOutOfBoundsException when there is no such Level
+     */
+    public Level get(int index) {
+        ByteBuffer records = this.index;
+        int record = getRecord(records, index);
+        if(!isValidRecord(records, record)) {
+            records = rebuild(records);
+            record = getRecord(records, index);
+        }
+        return Level.fromBuffer(buffer, records.getInt(record + OFFSET), records.getInt(record + LENGTH));
+    }
+
+    /**
+     * Returns title of Level with given index.
+     * @param index index of Level, from 0
+     * @return title of Level; null if it has none
+     * @throws IndexOutOfBoundsException when there is no such Level
+     */
+    public String getTitle(int index) {
+        int record = getRecord(index);
+        int titleOffset = this.index.getInt(record + TITLE_OFFSET);
+        if(titleOffset == -1) {
+            return null;
+        }
+        byte[] bytes = new byte[this.index.getInt(record + TITLE_LENGTH)];
+        for(int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(titleOffset + i);
+        }
+        return new String(bytes, StandardCharsets.ISO_8859_1).trim();
+    }
+
+    /**
+     * Returns index of the first byte of board of Level in collection.
+     * @param index index of Level, from 0
+     * @return offset of board in bytes
+     * @throws IndexOutOfBoundsException when there is no such Level
+     */
+    public int getOffset(int index) {
+        return this.index.getInt(getRecord(index) + OFFSET);
+    }
+
+    /**
+     * Returns the number of bytes of board of Level.
+     * @param index index of Level, from 0
+     * @return length of board in bytes
+     * @throws IndexOutOfBoundsException when there is no such Level
+     */
+    public int getLength(int index) {
+        return this.index.getInt(getRecord(index) + LENGTH);
+    }
+
+    /**
+     * Returns width of Level without parsing it.
+     * @param index index of Level, from 0
+     * @return width of Level
+     * @throws IndexOutOfBoundsException when there is no such Level
+     */
+    public int getWidth(int index) {
+        return this.index.getShort(getRecord(index) + WIDTH) & 0xFFFF;
+    }
+
+    /**
+     * Returns height of Level without parsing it.
+     * @param index index of Level, from 0
+     * @return height of Level
+     * @throws IndexOutOfBoundsException when there is no such Level
+     */
+    public int getHeight(int index) {
+        return this.index.getShort(getRecord(index) + HEIGHT) & 0xFFFF;
+    }
+
+    /**
+     * Returns the number of boxes of Level without parsing it.
+     * @param index index of Level, from 0
+     * @return the number of boxes
+     * @throws IndexOutOfBoundsException when there is no such Level
+     */
+    public int getBoxesCount(int index) {
+        return this.index.getInt(getRecord(index) + BOXES);
+    }
+
+    /**
+     * Returns hash of board of Level, which is the same for equal boards,
+     * whatever line separators they use.
+     * @param index index of Level, from 0
+     * @return 64-bit FNV-1a hash of board without '\r'
+     * @throws IndexOutOfBoundsException when there is no such Level
+     */
+    public long getHash(int index) {
+        return this.index.getLong(getRecord(index) + HASH);
+    }
+
+    /**
+     * Writes index of this collection to File, so it can be used when pack
+     * is opened again. Index of this collection may be mapped read-only
+     * from the same File, so it isn't changed, and the File is replaced
+     * by a new one rather than overwritten.
+     * @param indexFile The file to which index should be written.
+     * @param file The file of pack, which size and modification time are
+     * saved in index.
+     * @throws IOException throws IOException when unable to write file
+     */
+    public void writeIndex(File indexFile, File file) throws IOException {
+        ByteBuffer records = index.duplicate();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        ((Buffer) records).position(0);
+        ((Buffer) records).limit(HEADER_SIZE);
+        header.put(records);
+        header.putLong(16, file.length());
+        header.putLong(24, file.lastModified());
+        ((Buffer) header).flip();
+        ((Buffer) records).limit(HEADER_SIZE + size() * RECORD_SIZE);
+
+        File directory = indexFile.getAbsoluteFile().getParentFile();
+        File written = File.createTempFile("index", INDEX_SUFFIX, directory);
+        try {
+            try(FileChannel channel = FileChannel.open(written.toPath(), StandardOpenOption.WRITE)) {
+                while(header.hasRemaining() || records.hasRemaining()) {
+                    channel.write(new ByteBuffer[]{header, records});
+                }
+            }
+            Files.move(written.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            written.delete();
+        }
+    }
+
+    /**
+     * Checks if line is a part of board: it contains a wall and only
+     * characters of board.
+     * @param buffer bytes containing line
+     * @param start index of the first byte of line
+     * @param end index after the last byte of line, without '\n'
+     * @return true if line is a part of board; false otherwise.
+     */
+    public static boolean isBoardLine(ByteBuffer buffer, int start, int end) {
+        boolean hasWall = false;
+        for(int i = start; i < end; i++) {
+            switch(buffer.get(i)) {
+                case Level.WALL:
+                    hasWall = true;
+                    break;
+                case Level.PLAYER:
+                case Level.PLAYER_ON_SPOT:
+                case Level.BOX:
+                case Level.BOX_ON_SPOT:
+                case Level.SPOT:
+                case Level.TILE:
+                case '-':
+                case '_':
+                case '\t':
+                case '\r':
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return hasWall;
+    }
+
+    /**
+     * Finds boards and titles of all levels, line by line, and adds their
+     * records to index.
+     * @param start index of the first byte of collection
+     * @param end index after the last byte of collection
+     */
+    private void scan(int start, int end) {
+        int levelStart = -1;
+        int levelEnd = -1;
+        int commentStart = -1;
+        int commentEnd = -1;
+        int width = 0;
+        int height = 0;
+        int boxes = 0;
+        long hash = FNV_OFFSET;
+        int lineStart = start;
+        while(lineStart < end) {
+            int lineEnd = lineStart;
+            while(lineEnd < end && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+
+            if(isBoardLine(buffer, lineStart, lineEnd)) {
+                if(levelStart == -1) {
+                    levelStart = lineStart;
+                    width = 0;
+                    height = 0;
+                    boxes = 0;
+                    hash = FNV_OFFSET;
+                } else {
+                    hash = (hash ^ '\n') * FNV_PRIME;
+                }
+                int lineWidth = 0;
+                for(int i = lineStart; i < lineEnd; i++) {
+                    byte b = buffer.get(i);
+                    if(b == '\r') {
+                        continue;
+                    }
+                    if(b == Level.BOX || b == Level.BOX_ON_SPOT) {
+                        boxes++;
+                    }
+                    hash = (hash ^ (b & 0xFF)) * FNV_PRIME;
+                    lineWidth++;
+                }
+                width = Math.max(width, lineWidth);
+                height++;
+                levelEnd = lineEnd;
+            } else {
+                if(levelStart != -1) {
+                    add(levelStart, levelEnd, commentStart, commentEnd, width, height, boxes, hash);
+                    levelStart = -1;
+                    commentStart = -1;
+                }
+                if(startsWith(lineStart, lineEnd, TITLE_PREFIX) && size > 0) {
+                    int record = HEADER_SIZE + (size - 1) * RECORD_SIZE;
+                    index.putInt(record + TITLE_OFFSET, lineStart + TITLE_PREFIX.length());
+                    index.putInt(record + TITLE_LENGTH, lineEnd - lineStart - TITLE_PREFIX.length());
+                } else if(lineStart < lineEnd && buffer.get(lineStart) == ';' && commentStart == -1) {
+                    commentStart = lineStart + 1;
+                    commentEnd = lineEnd;
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        if(levelStart != -1) {
+            add(levelStart, levelEnd, commentStart, commentEnd, width, height, boxes, hash);
+        }
+    }
+
+    /**
+     * Adds record of Level to the index.
+     * @param start index of the first byte of board
+     * @param end index after the last byte of board
+     * @param titleStart index of the first byte of title; -1 if there is no
+     * title
+     * @param titleEnd index after the last byte of title
+     * @param width width of Level
+     * @param height height of Level
+     * @param boxes the number of boxes
+     * @param hash hash of board
+     */
+    private void add(int start, int end, int titleStart, int titleEnd, int width, int height, int boxes, long hash) {
+        int record = HEADER_SIZE + size * RECORD_SIZE;
+        if(record + RECORD_SIZE > index.capacity()) {
+            ByteBuffer grown = ByteBuffer.allocate(index.capacity() * 2);
+            grown.put(index.array());
+            index = grown;
+        }
+        index.putInt(record + OFFSET, start);
+        index.putInt(record + LENGTH, end - start);
+        index.putInt(record + TITLE_OFFSET, titleStart);
+        index.putInt(record + TITLE_LENGTH, titleEnd - titleStart);
+        index.putShort(record + WIDTH, (short) width);
+        index.putShort(record + HEIGHT, (short) height);
+        index.putInt(record + BOXES, boxes);
+        index.putLong(record + HASH, hash);
+        size++;
+    }
+
+    /**
+     * Checks if line starts with given ASCII prefix.
+     * @param start index of the first byte of line
+     * @param end index after the last byte of line
+     * @param prefix expected prefix
+     * @return true if line starts with prefix; false otherwise.
+     */
+    private boolean startsWith(int start, int end, String prefix) {
+        if(end - start < prefix.length()) {
+            return false;
+        }
+        for(int i = 0; i < prefix.length(); i++) {
+            if(buffer.get(start + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns position of record of Level in index.
+     * @param index index of Level
+     * @return position of the first byte of record
+     * @throws IndexOutOfBoundsException when there is no such Level
+     */
+    private int getRecord(int index) {
+        return getRecord(this.index, index);
+    }
+
+    /**
+     * Returns position of record of Level in given index.
+     * @param records header and records of levels
+     * @param index index of Level
+     * @return position of the first byte of record
+     * @throws IndexOutOfBoundsException when there is no such Level
+     */
+    private static int getRecord(ByteBuffer records, int index) {
+        int count = records.getInt(8);
+        if(index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Level " + index + " of " + count);
+        }
+        return HEADER_SIZE + index * RECORD_SIZE;
+    }
+
+    /**
+     * Checks if record describes board which is in the collection: its
+     * bytes are within the collection and have the same hash as in record.
+     * @param records header and records of levels
+     * @param record position of the first byte of record
+     * @return true if record matches the collection; false otherwise.
+     */
+    private boolean isValidRecord(ByteBuffer records, int record) {
+        int start = records.getInt(record + OFFSET);
+        int length = records.getInt(record + LENGTH);
+        if(start < 0 || length < 0 || (long) start + length > buffer.limit()) {
+            return false;
+        }
+        long hash = FNV_OFFSET;
+        for(int i = start; i < start + length; i++) {
+            byte b = buffer.get(i);
+            if(b != '\r') {
+                hash = (hash ^ (b & 0xFF)) * FNV_PRIME;
+            }
+        }
+        return hash == records.getLong(record + HASH);
+    }
+
+    /**
+     * Scans the collection again, replacing stale index, and saves new
+     * index to index file of pack. Index is rebuilt once, even if many
+     * threads find it stale at once.
+     * @param stale index found to be stale
+     * @return current index
+     */
+    private synchronized ByteBuffer rebuild(ByteBuffer stale) {
+        if(index == stale) {
+            LevelCollection scanned = new LevelCollection(buffer);
+            index = scanned.index;
+            saveIndex();
+        }
+        return index;
+    }
+
+    /**
+     * Saves index to index file of pack. Index is only a cache, so the
+     * collection is usable when it can't be saved.
+     */
+    private void saveIndex() {
+        if(file == null) {
+            return;
+        }
+        File indexFile = getIndexFile(file);
+        try {
+            writeIndex(indexFile, file);
+        } catch (IOException e) {
+            indexFile.delete();
+        }
+    }
+
+    /**
+     * Checks if index read from index file belongs to given pack.
+     * @param index header and records of levels
+     * @param file The file of pack.
+     * @return true if index is complete and pack hasn't changed since it was
+     * written; false otherwise.
+     */
+    private static boolean isValidIndex(ByteBuffer index, File file) {
+        return index.capacity() >= HEADER_SIZE
+                && index.getInt(0) == MAGIC
+                && index.getInt(4) == VERSION
+                && index.capacity() == HEADER_SIZE + (long) index.getInt(8) * RECORD_SIZE
+                && index.getLong(16) == file.length()
+                && index.getLong(24) == file.lastModified();
+    }
+
+    /**
+     * Maps whole File to memory, read only.
+     * @param file The file which should be mapped.
+     * @return buffer with bytes of file
+     * @throws IOException throws IOException when unable to map file or it's
+     * too big
+     */
+    private static ByteBuffer map(File file) throws IOException {
+        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if(channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("File is too big: " + file);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+}
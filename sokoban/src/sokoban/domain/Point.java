@@ -133,14 +133,25 @@ public class Point {
      * @return true if the object to be compared is an instance of Point and
      * has the same X and Y coordinates; false otherwise
      */
+    @Override
     public boolean equals(Object object) {
         if (object instanceof Point) {
             Point point = (Point) object;
-            return (this.x == point.y) && (this.y == point.y);
+            return (this.x == point.x) && (this.y == point.y);
         }
         return false;
     }
 
+    /**
+     * Returns hash code of this Point, consistent with equals().
+     *
+     * @return hash code of this Point
+     */
+    @Override
+    public int hashCode() {
+        return 31 * x + y;
+    }
+
     /**
      * Returns a string representation of this Point and its location.
      *
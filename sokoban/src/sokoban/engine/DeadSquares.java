@@ -0,0 +1,187 @@
+package sokoban.engine;
+
+import sokoban.domain.Direction;
+import sokoban.domain.Level;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bitmap of cells from which a box can never be pushed to any Spot, e.g.
+ * corners and cells along walls without Spots. Box pushed on such cell means
+ * that the game can't be won.
+ *
+ * Cell is alive if box can be pulled to it from some Spot, so the bitmap is
+ * computed with one search from all Spots. It depends only on Walls and
+ * Spots, so it's cached and shared by all positions of the same Level.
+ *
+ * @author Ketom
+ */
+public class DeadSquares {
+    /**
+     * Maximum number of cached bitmaps.
+     */
+    private static final int CACHE_SIZE = 1024;
+
+    /**
+     * Cached bitmaps, the least recently used are removed first.
+     */
+    private static final Map<Layout, DeadSquares> cache = new LinkedHashMap<Layout, DeadSquares>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Layout, DeadSquares> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Bits set for dead cells, indexed as cells of Engine.
+     */
+    private long[] bits;
+
+    /**
+     * The number of dead cells which are not walls.
+     */
+    private int deadCount;
+
+    /**
+     * Returns DeadSquares of given Level, computing them if they are not
+     * cached yet.
+     * @param level Level which should be examined
+     * @return DeadSquares of Level
+     */
+    public static DeadSquares of(Level level) {
+        return of(new Engine(level));
+    }
+
+    /**
+     * Returns DeadSquares of board of given Engine, computing them if they
+     * are not cached yet.
+     * @param engine Engine which board should be examined
+     * @return DeadSquares of board
+     */
+    public static DeadSquares of(Engine engine) {
+        Layout layout = new Layout(engine);
+        synchronized (cache) {
+            DeadSquares deadSquares = cache.get(layout);
+            if(deadSquares != null) {
+                return deadSquares;
+            }
+        }
+        DeadSquares deadSquares = new DeadSquares(engine);
+        synchronized (cache) {
+            cache.put(layout, deadSquares);
+        }
+        return deadSquares;
+    }
+
+    /**
+     * Computes DeadSquares of board of given Engine.
+     * @param engine Engine which board should be examined
+     */
+    public DeadSquares(Engine engine) {
+        int cellsCount = engine.getCellsCount();
+        int[] offsets = new int[4];
+        for(int i = 0; i < offsets.length; i++) {
+            offsets[i] = engine.getOffset(Direction.values()[i]);
+        }
+
+        boolean[] alive = new boolean[cellsCount];
+        int[] stack = new int[cellsCount];
+        int size = 0;
+        for(int i = 0; i < cellsCount; i++) {
+            if(engine.isSpot(i) && !engine.isWall(i)) {
+                alive[i] = true;
+                stack[size++] = i;
+            }
+        }
+        while(size > 0) {
+            int box = stack[--size];
+            for(int offset : offsets) {
+                int target = box + offset;
+                int player = target + offset;
+                if(alive[target] || engine.isWall(target) || engine.isWall(player)) {
+                    continue;
+                }
+                alive[target] = true;
+                stack[size++] = target;
+            }
+        }
+
+        bits = new long[(cellsCount + 63) / 64];
+        for(int i = 0; i < cellsCount; i++) {
+            if(!alive[i]) {
+                bits[i >>> 6] |= 1L << i;
+                if(!engine.isWall(i)) {
+                    deadCount++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if cell with given index is dead.
+     * @param index index of cell, the same as in Engine
+     * @return true if box on cell can never reach any Spot; false otherwise
+     */
+    public boolean isDead(int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Returns the number of dead cells which are not walls.
+     * @return the number of dead cells
+     */
+    public int getDeadCount() {
+        return deadCount;
+    }
+
+    /**
+     * Walls and Spots of a board, used as a key of cache.
+     */
+    private static class Layout {
+        /**
+         * Flags of cells without boxes.
+         */
+        private byte[] cells;
+
+        /**
+         * The number of cells in one row of grid.
+         */
+        private int stride;
+
+        /**
+         * Cached hash code.
+         */
+        private int hash;
+
+        /**
+         * Constructs Layout of board of given Engine.
+         * @param engine Engine which board is used
+         */
+        private Layout(Engine engine) {
+            stride = engine.getStride();
+            cells = new byte[engine.getCellsCount()];
+            for(int i = 0; i < cells.length; i++) {
+                cells[i] = (byte) (engine.get(i) & (Engine.WALL | Engine.SPOT));
+            }
+            hash = 31 * Arrays.hashCode(cells) + stride;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if(object instanceof Layout) {
+                Layout layout = (Layout) object;
+                return hash == layout.hash && stride == layout.stride && Arrays.equals(cells, layout.cells);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,539 @@
+package sokoban.engine;
+
+import sokoban.domain.Direction;
+import sokoban.domain.Level;
+
+import java.util.Arrays;
+
+/**
+ * Headless game engine holding state of a game board in flat array of
+ * bytes. Every byte is a set of flags describing one cell. The grid is
+ * surrounded by additional border of walls, so there is no need to check
+ * bounds when moving around the board.
+ *
+ * Engine doesn't allocate any objects while moving Player, so it can be used
+ * to simulate and verify many moves quickly.
+ * @author Ketom
+ */
+public class Engine {
+    /**
+     * Flags of which cells consist.
+     */
+    public static final byte EMPTY = 0;
+    public static final byte WALL = 1;
+    public static final byte SPOT = 2;
+    public static final byte BOX = 4;
+
+    /**
+     * The width of the board (without border).
+     */
+    private int width;
+
+    /**
+     * The height of the board (without border).
+     */
+    private int height;
+
+    /**
+     * The number of cells in one row of grid (with border).
+     */
+    private int stride;
+
+    /**
+     * Flags of all cells of the grid, row by row.
+     */
+    private byte[] cells;
+
+    /**
+     * Differences between indexes of neighbouring cells, indexed by
+     * Direction ordinal.
+     */
+    private int[] offsets;
+
+    /**
+     * Index of cell with Player. Equals -1 if there is no Player.
+     */
+    private int playerIndex;
+
+    /**
+     * Number of Spots on the board.
+     */
+    private int spotsCount;
+
+    /**
+     * Number of Boxes on the board.
+     */
+    private int boxesCount;
+
+    /**
+     * Number of Boxes which are placed on Spots.
+     */
+    private int boxesOnSpotsCount;
+
+    /**
+     * Counter how many times the player has moved.
+     */
+    private int playerMovesCount;
+
+    /**
+     * Counter how many times a box has been moved.
+     */
+    private int boxesMovesCount;
+
+    /**
+     * Dead cells of the board, computed when needed for the first time.
+     */
+    private DeadSquares deadSquares;
+
+    /**
+     * Detector of freeze deadlocks, created when needed for the first time.
+     */
+    private FreezeDeadlock freezeDeadlock;
+
+    /**
+     * Cells reachable by Player, created when needed for the first time.
+     */
+    private Reachability reachability;
+
+    /**
+     * Numbering of floor cells, created when needed for the first time.
+     */
+    private FloorMap floorMap;
+
+    /**
+     * Boxes which can't be pushed to Spots anymore; empty if the game can
+     * still be won.
+     */
+    private int[] deadlockedBoxes = new int[0];
+
+    /**
+     * Constructs Engine based on given Level.
+     * @param level Level from which Engine will be created.
+     * @throws IllegalArgumentException when Level contains more than one Player
+     */
+    public Engine(Level level) {
+        width = level.getWidth();
+        height = level.getHeight();
+        stride = width + 2;
+        cells = new byte[stride * (height + 2)];
+        offsets = new int[]{-stride, 1, stride, -1};
+        playerIndex = -1;
+
+        for(int i = 0; i < cells.length; i++) {
+            cells[i] = WALL;
+        }
+
+        for(int y = 0; y < height; y++) {
+            for(int x = 0; x < width; x++) {
+                int index = getIndex(x, y);
+                byte b = level.get(x, y);
+                switch (b) {
+                    case Level.WALL:
+                        cells[index] = WALL;
+                        break;
+                    case Level.BOX:
+                        cells[index] = BOX;
+                        break;
+                    case Level.BOX_ON_SPOT:
+                        cells[index] = BOX | SPOT;
+                        break;
+                    case Level.SPOT:
+                    case Level.PLAYER_ON_SPOT:
+                        cells[index] = SPOT;
+                        break;
+                    default:
+                        cells[index] = EMPTY;
+                }
+                if(b == Level.PLAYER || b == Level.PLAYER_ON_SPOT) {
+                    if(playerIndex != -1) {
+                        throw new IllegalArgumentException("Can't add Player on (" + x + ", " + y + ") because Player already exists on (" + getX(playerIndex) + ", " + getY(playerIndex) + ")");
+                    }
+                    playerIndex = index;
+                }
+            }
+        }
+
+        for(byte cell : cells) {
+            if((cell & SPOT) != 0) {
+                spotsCount++;
+            }
+            if((cell & BOX) != 0) {
+                boxesCount++;
+                if((cell & SPOT) != 0) {
+                    boxesOnSpotsCount++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Constructs Engine being copy of given Engine.
+     * @param engine Engine which state will be copied.
+     */
+    public Engine(Engine engine) {
+        width = engine.width;
+        height = engine.height;
+        stride = engine.stride;
+        cells = engine.cells.clone();
+        offsets = engine.offsets;
+        playerIndex = engine.playerIndex;
+        spotsCount = engine.spotsCount;
+        boxesCount = engine.boxesCount;
+        boxesOnSpotsCount = engine.boxesOnSpotsCount;
+        playerMovesCount = engine.playerMovesCount;
+        boxesMovesCount = engine.boxesMovesCount;
+        deadSquares = engine.deadSquares;
+        floorMap = engine.floorMap;
+        deadlockedBoxes = engine.deadlockedBoxes;
+    }
+
+    /**
+     * Moves Player in given direction according to rules in the game.
+     * @param direction The direction in which Player will be moved.
+     * @return BLOCKED if Player couldn't move; PUSHED if Player moved and
+     * pushed a Box; MOVED otherwise.
+     */
+    public MoveResult movePlayer(Direction direction) {
+        if(playerIndex == -1) {
+            return MoveResult.BLOCKED;
+        }
+        int offset = offsets[direction.ordinal()];
+        int newPlayerIndex = playerIndex + offset;
+        byte cell = cells[newPlayerIndex];
+
+        if((cell & WALL) != 0) {
+            return MoveResult.BLOCKED;
+        }
+        if((cell & BOX) == 0) {
+            playerIndex = newPlayerIndex;
+            playerMovesCount++;
+            return MoveResult.MOVED;
+        }
+
+        int newBoxIndex = newPlayerIndex + offset;
+        if((cells[newBoxIndex] & (WALL | BOX)) != 0) {
+            return MoveResult.BLOCKED;
+        }
+
+        cells[newPlayerIndex] &= ~BOX;
+        cells[newBoxIndex] |= BOX;
+        if((cell & SPOT) != 0) {
+            boxesOnSpotsCount--;
+        }
+        if((cells[newBoxIndex] & SPOT) != 0) {
+            boxesOnSpotsCount++;
+        }
+        playerIndex = newPlayerIndex;
+        playerMovesCount++;
+        boxesMovesCount++;
+        checkDeadlock(newPlayerIndex, newBoxIndex);
+        return MoveResult.PUSHED;
+    }
+
+    /**
+     * Returns if is win condition fulfilled
+     * @return true if there is a Box on every Spot; false otherwise.
+     */
+    public boolean isWinConditionFulfilled() {
+        return boxesOnSpotsCount == spotsCount;
+    }
+
+    /**
+     * Checks if Box pushed to given cell can't be pushed to any Spot anymore,
+     * being on dead square or frozen, and adds it to deadlocked boxes. It's
+     * checked after every push, also when the game is already lost, so every
+     * Box which gets stuck is known. The check is done only when there are
+     * as many Boxes as Spots.
+     * @param from index of cell from which Box was pushed
+     * @param box index of cell with pushed Box
+     */
+    private void checkDeadlock(int from, int box) {
+        if(boxesCount != spotsCount) {
+            return;
+        }
+        int[] found;
+        if(isDeadSquare(box)) {
+            found = new int[]{box};
+        } else {
+            if(freezeDeadlock == null) {
+                freezeDeadlock = new FreezeDeadlock(this);
+            }
+            found = freezeDeadlock.isDeadlock(cells, box) ? freezeDeadlock.getFrozenBoxes() : new int[0];
+        }
+
+        int[] boxes = Arrays.copyOf(deadlockedBoxes, deadlockedBoxes.length + found.length);
+        int count = 0;
+        for(int deadlocked : deadlockedBoxes) {
+            if(deadlocked != from) {
+                boxes[count++] = deadlocked;
+            }
+        }
+        for(int frozen : found) {
+            boxes[count++] = frozen;
+        }
+        Arrays.sort(boxes, 0, count);
+        int unique = 0;
+        for(int i = 0; i < count; i++) {
+            if(unique == 0 || boxes[unique - 1] != boxes[i]) {
+                boxes[unique++] = boxes[i];
+            }
+        }
+        deadlockedBoxes = Arrays.copyOf(boxes, unique);
+    }
+
+    /**
+     * Returns if the game can't be won anymore, because some Box was pushed
+     * on dead square or was frozen outside of a Spot.
+     * @return true if the game is lost; false otherwise
+     */
+    public boolean isDeadlocked() {
+        return deadlockedBoxes.length > 0;
+    }
+
+    /**
+     * Returns all Boxes found to be deadlocked so far, in order of cells.
+     * @return indexes of cells with deadlocked Boxes; empty if there is no
+     * deadlock
+     */
+    public int[] getDeadlockedBoxes() {
+        return deadlockedBoxes.clone();
+    }
+
+    /**
+     * Returns index of cell at given (x, y) coordinates.
+     * @param x the X coordinate
+     * @param y the Y coordinate
+     * @return index of cell
+     */
+    public int getIndex(int x, int y) {
+        return (y + 1) * stride + x + 1;
+    }
+
+    /**
+     * Returns the X coordinate of cell with given index.
+     * @param index index of cell
+     * @return the X coordinate of cell
+     */
+    public int getX(int index) {
+        return index % stride - 1;
+    }
+
+    /**
+     * Returns the Y coordinate of cell with given index.
+     * @param index index of cell
+     * @return the Y coordinate of cell
+     */
+    public int getY(int index) {
+        return index / stride - 1;
+    }
+
+    /**
+     * Returns difference between indexes of cell and its neighbour in given
+     * direction.
+     * @param direction direction of neighbour
+     * @return difference between indexes
+     */
+    public int getOffset(Direction direction) {
+        return offsets[direction.ordinal()];
+    }
+
+    /**
+     * Returns flags of cell with given index.
+     * @param index index of cell
+     * @return flags of cell
+     */
+    public byte get(int index) {
+        return cells[index];
+    }
+
+    /**
+     * Checks if there is a Wall in cell with given index.
+     * @param index index of cell
+     * @return true if there is a Wall; false otherwise
+     */
+    public boolean isWall(int index) {
+        return (cells[index] & WALL) != 0;
+    }
+
+    /**
+     * Checks if there is a Spot in cell with given index.
+     * @param index index of cell
+     * @return true if there is a Spot; false otherwise
+     */
+    public boolean isSpot(int index) {
+        return (cells[index] & SPOT) != 0;
+    }
+
+    /**
+     * Checks if there is a Box in cell with given index.
+     * @param index index of cell
+     * @return true if there is a Box; false otherwise
+     */
+    public boolean isBox(int index) {
+        return (cells[index] & BOX) != 0;
+    }
+
+    /**
+     * Checks if box in cell with given index can never reach any Spot.
+     * @param index index of cell
+     * @return true if cell is dead; false otherwise
+     */
+    public boolean isDeadSquare(int index) {
+        return getDeadSquares().isDead(index);
+    }
+
+    /**
+     * Returns dead cells of the board.
+     * @return DeadSquares of the board
+     */
+    public DeadSquares getDeadSquares() {
+        if(deadSquares == null) {
+            deadSquares = DeadSquares.of(this);
+        }
+        return deadSquares;
+    }
+
+    /**
+     * Computes cells which Player can reach without pushing any Box. The
+     * returned object is reused by following calls.
+     * @return Reachability of current position
+     */
+    public Reachability getReachability() {
+        if(reachability == null) {
+            reachability = new Reachability(this);
+        }
+        reachability.compute(cells, playerIndex);
+        return reachability;
+    }
+
+    /**
+     * Returns numbering of floor cells of the board.
+     * @return FloorMap of the board
+     */
+    public FloorMap getFloorMap() {
+        if(floorMap == null) {
+            floorMap = new FloorMap(this);
+        }
+        return floorMap;
+    }
+
+    /**
+     * Returns current position of Boxes and Player packed by FloorMap of the
+     * board.
+     * @return packed position
+     * @throws IllegalArgumentException when there is no Player
+     */
+    public PackedState toPackedState() {
+        if(playerIndex == -1) {
+            throw new IllegalArgumentException("There is no Player");
+        }
+        int[] boxes = new int[boxesCount];
+        int count = 0;
+        for(int i = 0; i < cells.length && count < boxes.length; i++) {
+            if((cells[i] & BOX) != 0) {
+                boxes[count++] = i;
+            }
+        }
+        return getFloorMap().pack(boxes, playerIndex);
+    }
+
+    /**
+     * Returns index of cell with Player.
+     * @return index of cell with Player; -1 if there is no Player
+     */
+    public int getPlayerIndex() {
+        return playerIndex;
+    }
+
+    /**
+     * Returns the number of cells in one row of grid, including border.
+     * @return the number of cells in one row
+     */
+    public int getStride() {
+        return stride;
+    }
+
+    /**
+     * Returns the number of cells in grid, including border.
+     * @return the number of cells
+     */
+    public int getCellsCount() {
+        return cells.length;
+    }
+
+    /**
+     * Returns the width of the board
+     * @return width of the board
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the board
+     * @return height of the board
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the number of Boxes on the board.
+     * @return the number of Boxes
+     */
+    public int getBoxesCount() {
+        return boxesCount;
+    }
+
+    /**
+     * Returns the number of Spots on the board.
+     * @return the number of Spots
+     */
+    public int getSpotsCount() {
+        return spotsCount;
+    }
+
+    /**
+     * Returns value of counter how many times the player has moved.
+     * @return how many times the player has moved.
+     */
+    public int getPlayerMovesCount() {
+        return playerMovesCount;
+    }
+
+    /**
+     * Returns value of counter how many times a box has been moved.
+     * @return how many times a box has been moved.
+     */
+    public int getBoxesMovesCount() {
+        return boxesMovesCount;
+    }
+
+    /**
+     * Constructs Level based on current state of Engine
+     * @return Level representing current state of Engine.
+     */
+    public Level toLevel() {
+        byte[][] bytes = new byte[width][height];
+
+        for(int y = 0; y < height; y++) {
+            for(int x = 0; x < width; x++) {
+                int index = getIndex(x, y);
+                byte cell = cells[index];
+                byte b = Level.TILE;
+
+                if((cell & WALL) != 0) {
+                    b = Level.WALL;
+                } else if((cell & BOX) != 0) {
+                    b = ((cell & SPOT) != 0) ? Level.BOX_ON_SPOT : Level.BOX;
+                } else if(index == playerIndex) {
+                    b = ((cell & SPOT) != 0) ? Level.PLAYER_ON_SPOT : Level.PLAYER;
+                } else if((cell & SPOT) != 0) {
+                    b = Level.SPOT;
+                }
+                bytes[x][y] = b;
+            }
+        }
+        return new Level(width, height, bytes);
+    }
+}
@@ -0,0 +1,157 @@
+package sokoban.engine;
+
+import java.util.Arrays;
+
+/**
+ * Numbering of floor cells of Engine grid: cells inside the walls, which
+ * boxes and the player can ever occupy. Walls and cells outside of the
+ * level get no number, so floor numbers are much smaller than indexes of
+ * cells and fit in a short. Numbers follow order of cells, so sorted cells
+ * have sorted numbers.
+ *
+ * FloorMap is used to convert positions to PackedStates and back. It
+ * doesn't change when boxes or the player move, so it can be shared by all
+ * positions of one level.
+ *
+ * @author Ketom
+ */
+public class FloorMap {
+    /**
+     * Maximum number of floor cells.
+     */
+    public static final int MAX_FLOORS = Short.MAX_VALUE + 1;
+
+    /**
+     * Floor numbers of cells; -1 for cells which aren't floor.
+     */
+    private int[] floors;
+
+    /**
+     * Indexes of cells, indexed by floor number.
+     */
+    private int[] cells;
+
+    /**
+     * Constructs FloorMap of given Engine. Floor consists of cells which the
+     * player could reach if there were no boxes, and all cells with boxes
+     * and spots.
+     * @param engine Engine which board will be numbered
+     * @throws IllegalArgumentException when there are more than MAX_FLOORS
+     * floor cells
+     */
+    public FloorMap(Engine engine) {
+        boolean[] inside = new boolean[engine.getCellsCount()];
+        int[] stack = new int[inside.length];
+        int size = 0;
+        int player = engine.getPlayerIndex();
+        if(player != -1) {
+            stack[size++] = player;
+            inside[player] = true;
+        }
+        int[] offsets = {-engine.getStride(), 1, engine.getStride(), -1};
+        while(size > 0) {
+            int index = stack[--size];
+            for(int offset : offsets) {
+                int neighbour = index + offset;
+                if(!inside[neighbour] && !engine.isWall(neighbour)) {
+                    inside[neighbour] = true;
+                    stack[size++] = neighbour;
+                }
+            }
+        }
+
+        floors = new int[inside.length];
+        cells = new int[inside.length];
+        int count = 0;
+        for(int i = 0; i < inside.length; i++) {
+            if(inside[i] || engine.isBox(i) || engine.isSpot(i)) {
+                floors[i] = count;
+                cells[count++] = i;
+            } else {
+                floors[i] = -1;
+            }
+        }
+        if(count > MAX_FLOORS) {
+            throw new IllegalArgumentException("Level has " + count + " floor cells, more than " + MAX_FLOORS);
+        }
+        cells = Arrays.copyOf(cells, count);
+    }
+
+    /**
+     * Returns the number of floor cells.
+     * @return the number of floor cells
+     */
+    public int getFloorsCount() {
+        return cells.length;
+    }
+
+    /**
+     * Returns floor number of given cell.
+     * @param index index of cell
+     * @return floor number; -1 if cell isn't floor
+     */
+    public int toFloor(int index) {
+        return floors[index];
+    }
+
+    /**
+     * Returns cell with given floor number.
+     * @param floor floor number
+     * @return index of cell
+     */
+    public int toCell(int floor) {
+        return cells[floor];
+    }
+
+    /**
+     * Packs position given by indexes of cells.
+     * @param boxes sorted indexes of cells with boxes
+     * @param player index of cell with the player
+     * @return packed position
+     * @throws IllegalArgumentException when some box or the player isn't on
+     * floor
+     */
+    public PackedState pack(int[] boxes, int player) {
+        short[] packed = new short[boxes.length];
+        for(int i = 0; i < boxes.length; i++) {
+            packed[i] = toShort(boxes[i]);
+        }
+        return new PackedState(packed, toShort(player));
+    }
+
+    /**
+     * Returns indexes of cells with boxes of packed position.
+     * @param state packed position
+     * @return sorted indexes of cells with boxes
+     */
+    public int[] unpackBoxes(PackedState state) {
+        int[] boxes = new int[state.getBoxesCount()];
+        for(int i = 0; i < boxes.length; i++) {
+            boxes[i] = cells[state.getBox(i)];
+        }
+        return boxes;
+    }
+
+    /**
+     * Returns index of cell with the player of packed position.
+     * @param state packed position
+     * @return index of cell with the player
+     */
+    public int unpackPlayer(PackedState state) {
+        return cells[state.getPlayer()];
+    }
+
+    /**
+     * Converts index of floor cell to short.
+     * @param index index of cell
+     * @return floor number as short
+     * @throws IllegalArgumentException when cell isn't floor
+     */
+    private short toShort(int index) {
+        int floor = floors[index];
+        if(floor == -1) {
+            throw new IllegalArgumentException("Cell " + index + " isn't floor");
+        }
+        return (short) floor;
+    }
+}
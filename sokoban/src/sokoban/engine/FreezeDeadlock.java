@@ -0,0 +1,161 @@
+package sokoban.engine;
+
+import java.util.Arrays;
+
+/**
+ * Detector of freeze deadlocks: boxes which can't be moved anymore, neither
+ * horizontally nor vertically, because they are blocked by walls, dead
+ * squares and other frozen boxes. Frozen box which isn't on a Spot means
+ * that the game can't be won.
+ *
+ * Only the neighbourhood of the pushed box is examined, so the check is
+ * cheap enough to be done after every push. Checked boxes are treated as
+ * walls while their neighbours are examined, which breaks cycles.
+ *
+ * Detector works on flags of cells in the same format as Engine and reuses
+ * its buffers, so one detector shouldn't be used by many threads at once.
+ *
+ * @author Ketom
+ */
+public class FreezeDeadlock {
+    /**
+     * Differences between indexes of neighbouring cells, indexed by
+     * Direction ordinal.
+     */
+    private int[] offsets;
+
+    /**
+     * Dead cells of the board.
+     */
+    private DeadSquares deadSquares;
+
+    /**
+     * Box is treated as a wall if its value equals stamp.
+     */
+    private int[] marks;
+    private int stamp;
+
+    /**
+     * Boxes found to be frozen by the last check.
+     */
+    private int[] frozen;
+
+    /**
+     * The number of boxes in frozen array.
+     */
+    private int frozenCount;
+
+    /**
+     * Constructs FreezeDeadlock for board of given Engine.
+     * @param engine Engine which board will be examined
+     */
+    public FreezeDeadlock(Engine engine) {
+        this(engine.getCellsCount(), engine.getStride(), engine.getDeadSquares());
+    }
+
+    /**
+     * Constructs FreezeDeadlock for board with given size.
+     * @param cellsCount the number of cells in grid, including border
+     * @param stride the number of cells in one row of grid, including border
+     * @param deadSquares dead cells of the board
+     */
+    public FreezeDeadlock(int cellsCount, int stride, DeadSquares deadSquares) {
+        this.deadSquares = deadSquares;
+        offsets = new int[]{-stride, 1, stride, -1};
+        marks = new int[cellsCount];
+        frozen = new int[cellsCount];
+    }
+
+    /**
+     * Checks if box in given cell is frozen together with its neighbours and
+     * at least one of them is not on a Spot.
+     * @param cells flags of all cells of the grid, as in Engine
+     * @param box index of cell with box which has just been pushed
+     * @return true if there is a freeze deadlock; false otherwise
+     */
+    public boolean isDeadlock(byte[] cells, int box) {
+        if(stamp == Integer.MAX_VALUE) {
+            Arrays.fill(marks, 0);
+            stamp = 0;
+        }
+        stamp++;
+        frozenCount = 0;
+        if(!isFrozen(cells, box)) {
+            frozenCount = 0;
+            return false;
+        }
+        for(int i = 0; i < frozenCount; i++) {
+            if((cells[frozen[i]] & Engine.SPOT) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of boxes found to be frozen by the last check.
+     * @return the number of frozen boxes
+     */
+    public int getFrozenCount() {
+        return frozenCount;
+    }
+
+    /**
+     * Returns boxes found to be frozen by the last check.
+     * @return indexes of cells with frozen boxes
+     */
+    public int[] getFrozenBoxes() {
+        return Arrays.copyOf(frozen, frozenCount);
+    }
+
+    /**
+     * Checks if box in given cell can't be moved along any axis. When it
+     * can be moved, all boxes assumed to be frozen during the check are
+     * forgotten.
+     * @param cells flags of all cells of the grid
+     * @param box index of cell with box
+     * @return true if box is frozen; false otherwise
+     */
+    private boolean isFrozen(byte[] cells, int box) {
+        int count = frozenCount;
+        marks[box] = stamp;
+        frozen[frozenCount++] = box;
+        if(isBlocked(cells, box, offsets[1]) && isBlocked(cells, box, offsets[0])) {
+            return true;
+        }
+        while(frozenCount > count) {
+            marks[frozen[--frozenCount]] = 0;
+        }
+        return false;
+    }
+
+    /**
+     * Checks if box in given cell can't be moved along axis of given offset.
+     * @param cells flags of all cells of the grid
+     * @param box index of cell with box
+     * @param offset difference between indexes of neighbours on the axis
+     * @return true if box can't be moved along the axis; false otherwise
+     */
+    private boolean isBlocked(byte[] cells, int box, int offset) {
+        int before = box - offset;
+        int after = box + offset;
+        if(isWall(cells, before) || isWall(cells, after)) {
+            return true;
+        }
+        if(deadSquares.isDead(before) && deadSquares.isDead(after)) {
+            return true;
+        }
+        return ((cells[before] & Engine.BOX) != 0 && isFrozen(cells, before))
+                || ((cells[after] & Engine.BOX) != 0 && isFrozen(cells, after));
+    }
+
+    /**
+     * Checks if cell is a wall or a box already assumed to be frozen.
+     * @param cells flags of all cells of the grid
+     * @param index index of cell
+     * @return true if cell is treated as a wall; false otherwise
+     */
+    private boolean isWall(byte[] cells, int index) {
+        return (cells[index] & Engine.WALL) != 0 || marks[index] == stamp;
+    }
+}
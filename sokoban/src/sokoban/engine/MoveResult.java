@@ -0,0 +1,10 @@
+package sokoban.engine;
+
+/**
+ * The result of trying to move the Player in some direction.
+ *
+ * @author Ketom
+ */
+public enum MoveResult {
+    BLOCKED, MOVED, PUSHED
+}
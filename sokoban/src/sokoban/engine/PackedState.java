@@ -0,0 +1,133 @@
+package sokoban.engine;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Compact immutable position of boxes and the player, numbered by floor
+ * cells of FloorMap. Boxes are kept as sorted array of shorts, so position
+ * with 20 boxes takes about 100 bytes of heap, and 42 bytes serialized.
+ * Hash code is computed once, and equality compares arrays of primitives,
+ * so PackedStates are cheap keys of hash maps holding millions of positions.
+ *
+ * @author Ketom
+ */
+public final class PackedState {
+    /**
+     * Sorted floor numbers of cells with boxes.
+     */
+    private short[] boxes;
+
+    /**
+     * Floor number of cell with the player.
+     */
+    private short player;
+
+    /**
+     * Cached hash code.
+     */
+    private int hash;
+
+    /**
+     * Constructs PackedState. Given array is used directly and must not be
+     * modified later.
+     * @param boxes sorted floor numbers of cells with boxes
+     * @param player floor number of cell with the player
+     */
+    public PackedState(short[] boxes, short player) {
+        this.boxes = boxes;
+        this.player = player;
+        this.hash = 31 * Arrays.hashCode(boxes) + player;
+    }
+
+    /**
+     * Reads PackedState from bytes written by toBytes().
+     * @param bytes serialized PackedState
+     * @return read PackedState
+     * @throws IllegalArgumentException when bytes have odd length
+     */
+    public static PackedState fromBytes(byte[] bytes) {
+        if(bytes.length < Short.BYTES || bytes.length % Short.BYTES != 0) {
+            throw new IllegalArgumentException("Invalid length of PackedState: " + bytes.length);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        short player = buffer.getShort();
+        short[] boxes = new short[buffer.remaining() / Short.BYTES];
+        buffer.asShortBuffer().get(boxes);
+        return new PackedState(boxes, player);
+    }
+
+    /**
+     * Serializes this PackedState: floor number of the player followed by
+     * floor numbers of boxes, two bytes each.
+     * @return serialized PackedState
+     */
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(Short.BYTES * (boxes.length + 1));
+        buffer.putShort(player);
+        buffer.asShortBuffer().put(boxes);
+        return buffer.array();
+    }
+
+    /**
+     * Returns the number of boxes.
+     * @return the number of boxes
+     */
+    public int getBoxesCount() {
+        return boxes.length;
+    }
+
+    /**
+     * Returns floor number of cell with given box.
+     * @param i position of box in sorted order
+     * @return floor number of cell with box
+     */
+    public int getBox(int i) {
+        return boxes[i];
+    }
+
+    /**
+     * Returns floor number of cell with the player.
+     * @return floor number of cell with the player
+     */
+    public int getPlayer() {
+        return player;
+    }
+
+    /**
+     * Determines whether or not two packed states are equal. They are equal
+     * if they have boxes and the player on the same floor cells.
+     * @param object an object to be compared with this PackedState
+     * @return true if the object to be compared is an instance of
+     * PackedState and represents the same position; false otherwise
+     */
+    @Override
+    public boolean equals(Object object) {
+        if(this == object) {
+            return true;
+        }
+        if(object instanceof PackedState) {
+            PackedState state = (PackedState) object;
+            return hash == state.hash && player == state.player && Arrays.equals(boxes, state.boxes);
+        }
+        return false;
+    }
+
+    /**
+     * Returns hash code of this PackedState.
+     * @return hash code of this PackedState
+     */
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * Returns a string representation of this PackedState.
+     * @return a string representation of this PackedState
+     */
+    @Override
+    public String toString() {
+        return "PackedState(" + Arrays.toString(boxes) + ", " + player + ')';
+    }
+}
@@ -0,0 +1,123 @@
+package sokoban.engine;
+
+import java.util.Arrays;
+
+/**
+ * Cells which the player can reach without pushing any box, kept as a
+ * bitset over cells of Engine grid. Smallest reachable index is the top-left
+ * reachable cell, so it can be used as canonical position of the player:
+ * all positions from which the player can walk to each other have the same
+ * top-left cell.
+ *
+ * Bitset and stack are allocated once and reused by every computation, so
+ * one instance shouldn't be used by many threads at once.
+ *
+ * @author Ketom
+ */
+public class Reachability {
+    /**
+     * Differences between indexes of neighbouring cells, indexed by
+     * Direction ordinal.
+     */
+    private int[] offsets;
+
+    /**
+     * Bits set for reachable cells.
+     */
+    private long[] bits;
+
+    /**
+     * Stack of cells waiting to be visited.
+     */
+    private int[] stack;
+
+    /**
+     * Smallest index of reachable cell; -1 if nothing is reachable.
+     */
+    private int topLeft;
+
+    /**
+     * The number of reachable cells.
+     */
+    private int count;
+
+    /**
+     * Constructs Reachability for board of given Engine.
+     * @param engine Engine which board will be examined
+     */
+    public Reachability(Engine engine) {
+        this(engine.getCellsCount(), engine.getStride());
+    }
+
+    /**
+     * Constructs Reachability for grid of given size.
+     * @param cellsCount the number of cells in grid, including border
+     * @param stride the number of cells in one row of grid, including border
+     */
+    public Reachability(int cellsCount, int stride) {
+        offsets = new int[]{-stride, 1, stride, -1};
+        bits = new long[(cellsCount + 63) / 64];
+        stack = new int[cellsCount];
+        topLeft = -1;
+    }
+
+    /**
+     * Computes cells reachable from given cell, treating walls and boxes as
+     * obstacles.
+     * @param cells flags of all cells of the grid, as in Engine
+     * @param start index of cell with the player; -1 if there is no player
+     * @return index of top-left reachable cell; -1 if there is no player
+     */
+    public int compute(byte[] cells, int start) {
+        Arrays.fill(bits, 0);
+        count = 0;
+        topLeft = start;
+        if(start < 0) {
+            return topLeft;
+        }
+        int size = 0;
+        stack[size++] = start;
+        bits[start >>> 6] |= 1L << start;
+        while(size > 0) {
+            int index = stack[--size];
+            count++;
+            if(index < topLeft) {
+                topLeft = index;
+            }
+            for(int offset : offsets) {
+                int neighbour = index + offset;
+                long mask = 1L << neighbour;
+                if((bits[neighbour >>> 6] & mask) == 0 && (cells[neighbour] & (Engine.WALL | Engine.BOX)) == 0) {
+                    bits[neighbour >>> 6] |= mask;
+                    stack[size++] = neighbour;
+                }
+            }
+        }
+        return topLeft;
+    }
+
+    /**
+     * Checks if cell was reachable in the last computation.
+     * @param index index of cell
+     * @return true if cell is reachable; false otherwise
+     */
+    public boolean isReachable(int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Returns top-left reachable cell of the last computation.
+     * @return index of top-left reachable cell; -1 if there was no player
+     */
+    public int getTopLeft() {
+        return topLeft;
+    }
+
+    /**
+     * Returns the number of reachable cells of the last computation.
+     * @return the number of reachable cells
+     */
+    public int getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,7 @@
+/**
+ * Package containing headless game engine. Classes in it implement rules of
+ * the game on flat arrays of primitives, don't depend on JavaFX and can be
+ * used without GUI (e.g. for simulations and by solvers).
+ */
+
+package sokoban.engine;
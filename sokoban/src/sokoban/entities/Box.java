@@ -14,6 +14,16 @@ public class Box extends Entity {
      */
     private boolean isCorrect;
 
+    /**
+     * Is the Box deadlocked, so it can't be pushed to any Spot anymore.
+     */
+    private boolean isDeadlocked;
+
+    /**
+     * Rectangle drawing the Box.
+     */
+    private Rectangle rectangle;
+
     /**
      * Constructs Box at given position and with given grid size
      * @param position The Point on which constructed Entity is.
@@ -25,7 +35,7 @@ public class Box extends Entity {
 
         double margin = 5;
 
-        Rectangle rectangle = new Rectangle(margin, margin, gridSize - 2 * margin, gridSize - 2 * margin);
+        rectangle = new Rectangle(margin, margin, gridSize - 2 * margin, gridSize - 2 * margin);
         rectangle.setFill(Color.BLUE);
 
         getChildren().addAll(rectangle);
@@ -47,4 +57,21 @@ public class Box extends Entity {
         return isCorrect;
     }
 
+    /**
+     * Sets if the Box is deadlocked. Deadlocked Box is drawn in red.
+     * @param deadlocked is this box deadlocked?
+     */
+    public void setDeadlocked(boolean deadlocked) {
+        isDeadlocked = deadlocked;
+        rectangle.setFill(deadlocked ? Color.RED : Color.BLUE);
+    }
+
+    /**
+     * Returns if this Box is deadlocked.
+     * @return true if this Box can't be pushed to any Spot; false otherwise.
+     */
+    public boolean isDeadlocked() {
+        return isDeadlocked;
+    }
+
 }
@@ -71,6 +71,22 @@ public abstract class Entity extends Pane {
         return new Point(position);
     }
 
+    /**
+     * Returns the X coordinate of position this Entity is on.
+     * @return the X coordinate
+     */
+    public int getX() {
+        return position.getX();
+    }
+
+    /**
+     * Returns the Y coordinate of position this Entity is on.
+     * @return the Y coordinate
+     */
+    public int getY() {
+        return position.getY();
+    }
+
     /**
      * Sets direction in which this Entity is turned.
      * @param direction The direction in which Entity will be turned.
@@ -127,8 +127,8 @@ public abstract class Board extends Pane {
 
         for(int y = 0; y < height; y++) {
             for(int x = 0; x < width; x++) {
-                Entity playerLayerEntity = playerLayer.get(new Point(x, y));
-                Entity spotsLayerEntity = spotsLayer.get(new Point(x, y));
+                Entity playerLayerEntity = playerLayer.get(x, y);
+                Entity spotsLayerEntity = spotsLayer.get(x, y);
                 byte b = Level.TILE;
 
                 if(spotsLayerEntity != null) {
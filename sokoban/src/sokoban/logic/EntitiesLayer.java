@@ -81,14 +81,24 @@ public class EntitiesLayer extends Pane {
      * @param point Point from which entity should be removed.
      */
     public void clear(Point point) {
-        Entity entity = get(point);
+        clear(point.getX(), point.getY());
+    }
+
+    /**
+     * Removes entity present at given coordinates. If there is no entity,
+     * does nothing.
+     * @param x the X coordinate from which entity should be removed.
+     * @param y the Y coordinate from which entity should be removed.
+     */
+    public void clear(int x, int y) {
+        Entity entity = get(x, y);
         if(entity == null) {
             return;
         }
         if(entity instanceof Player) {
             player = null;
         }
-        entitiesLut[point.getX()][point.getY()] = null;
+        entitiesLut[x][y] = null;
         getChildren().remove(entity);
     }
 
@@ -98,15 +108,16 @@ public class EntitiesLayer extends Pane {
      * @param entity Entity to be placed into layer
      */
     public void put(Entity entity) {
-        Point point = entity.getPosition();
+        int x = entity.getX();
+        int y = entity.getY();
         if(entity instanceof Player) {
             if(player != null) {
-                throw new IllegalArgumentException("Can't add Player on " + point + " because Player already exists on " + player.getPosition());
+                throw new IllegalArgumentException("Can't add Player on " + entity.getPosition() + " because Player already exists on " + player.getPosition());
             }
             player = (Player) entity;
         }
-        clear(point);
-        entitiesLut[point.getX()][point.getY()] = entity;
+        clear(x, y);
+        entitiesLut[x][y] = entity;
         getChildren().add(entity);
     }
 
@@ -116,7 +127,17 @@ public class EntitiesLayer extends Pane {
      * @return entity present at given position
      */
     public Entity get(Point point) {
-        return entitiesLut[point.getX()][point.getY()];
+        return get(point.getX(), point.getY());
+    }
+
+    /**
+     * Returns entity present at given coordinates
+     * @param x the X coordinate from which Entity should be fetched
+     * @param y the Y coordinate from which Entity should be fetched
+     * @return entity present at given coordinates
+     */
+    public Entity get(int x, int y) {
+        return entitiesLut[x][y];
     }
 
     /**
@@ -133,7 +154,7 @@ public class EntitiesLayer extends Pane {
     public void clearPlayer() {
         Player player = getPlayer();
         if (player != null) {
-            clear(player.getPosition());
+            clear(player.getX(), player.getY());
         }
     }
 }
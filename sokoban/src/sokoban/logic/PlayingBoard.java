@@ -3,8 +3,9 @@ package sokoban.logic;
 import sokoban.domain.Direction;
 import sokoban.domain.Level;
 import sokoban.domain.Point;
+import sokoban.engine.Engine;
+import sokoban.engine.MoveResult;
 import sokoban.entities.Box;
-import sokoban.entities.Entity;
 import sokoban.entities.Player;
 import sokoban.entities.Spot;
 
@@ -16,19 +17,10 @@ import sokoban.entities.Spot;
  */
 public class PlayingBoard extends Board {
     /**
-     * Counter how many times the player has moved.
+     * Headless Engine implementing rules of the game. PlayingBoard only
+     * reflects its state with entities.
      */
-    private int playerMovesCount;
-
-    /**
-     * Counter how many times a box has been moved.
-     */
-    private int boxesMovesCount;
-
-    /**
-     * Is win condition fulfilled
-     */
-    private boolean isWinConditionFulfilled;
+    private Engine engine;
 
     /**
      * Constructs PlayerBoard based on given Level.
@@ -37,73 +29,66 @@ public class PlayingBoard extends Board {
     public PlayingBoard(Level level) {
         super(level);
 
-        playerMovesCount = 0;
-        boxesMovesCount = 0;
-
-        updateWinCondition();
+        engine = new Engine(level);
     }
 
     /**
-     * Moves Player in given direction according to rules in the game.
+     * Moves Player in given direction according to rules in the game. After
+     * every push, all Boxes which can't reach Spots anymore are marked, also
+     * ones deadlocked after the game has been already lost.
      * @param direction The direction in which Player will be moved.
      */
     public void movePlayer(Direction direction) {
         Player player = playerLayer.getPlayer();
-
-        Point currentPlayerPosition = player.getPosition();
-        Point newPlayerPosition = new Point(currentPlayerPosition);
-        newPlayerPosition.translate(direction);
+        if(player == null) {
+            return;
+        }
 
         player.setDirection(direction);
 
-        if(!isPointValid(newPlayerPosition)) {
+        MoveResult result = engine.movePlayer(direction);
+        if(result == MoveResult.BLOCKED) {
             return;
         }
 
-        Entity entity = playerLayer.get(newPlayerPosition);
-
-        if(entity == null) {
-            playerLayer.clearPlayer();
-            player.move(direction);
-            playerLayer.put(player);
-        } else {
-            if(entity instanceof Box) {
-                Box box = (Box) entity;
-                Point newBoxPosition = new Point(newPlayerPosition);
-                newBoxPosition.translate(direction);
-
-                if(!isPointValid(newBoxPosition) || playerLayer.get(newBoxPosition) != null) {
-                    return;
-                }
-
-                playerLayer.clearPlayer();
-                playerLayer.clear(newPlayerPosition);
-
-                player.move(direction);
-                box.move(direction);
-
-                playerLayer.put(player);
-                playerLayer.put(box);
+        int index = engine.getPlayerIndex();
+        int x = engine.getX(index);
+        int y = engine.getY(index);
+        playerLayer.clearPlayer();
+
+        if(result == MoveResult.PUSHED) {
+            int boxIndex = index + engine.getOffset(direction);
+            int boxX = engine.getX(boxIndex);
+            int boxY = engine.getY(boxIndex);
+
+            Box box = (Box) playerLayer.get(x, y);
+            playerLayer.clear(x, y);
+            box.move(direction);
+            playerLayer.put(box);
+
+            Spot spot = (Spot) spotsLayer.get(boxX, boxY);
+            if(spot != null) {
+                box.setCorrect(true);
+                spot.setCorrect(true);
+            } else {
+                box.setCorrect(false);
+            }
 
-                Spot spot = (Spot) spotsLayer.get(newBoxPosition);
-                if(spot != null) {
-                    box.setCorrect(true);
-                    spot.setCorrect(true);
-                } else {
-                    box.setCorrect(false);
-                }
+            spot = (Spot) spotsLayer.get(x, y);
+            if(spot != null) {
+                spot.setCorrect(false);
+            }
 
-                spot = (Spot) spotsLayer.get(newPlayerPosition);
-                if(spot != null) {
-                    spot.setCorrect(false);
+            for(int deadlocked : engine.getDeadlockedBoxes()) {
+                Box deadlockedBox = (Box) playerLayer.get(engine.getX(deadlocked), engine.getY(deadlocked));
+                if(deadlockedBox != null) {
+                    deadlockedBox.setDeadlocked(true);
                 }
-                boxesMovesCount++;
-                updateWinCondition();
-            } else {
-                return;
             }
         }
-        playerMovesCount++;
+
+        player.move(direction);
+        playerLayer.put(player);
     }
 
     /**
@@ -111,24 +96,25 @@ public class PlayingBoard extends Board {
      * @return true if is win condition fulfilled; false otherwise.
      */
     public boolean isWinConditionFulfilled() {
-        return isWinConditionFulfilled;
+        return engine.isWinConditionFulfilled();
     }
 
     /**
-     * Recalculates if is win condition fulfilled
+     * Returns if the game is lost, because some box can't be pushed to any
+     * spot anymore.
+     * @return true if the game can't be won; false otherwise.
      */
-    private void updateWinCondition() {
-        Spot spot;
-        for(int y = 0; y < height; y++) {
-            for(int x = 0; x < width; x++) {
-                spot = (Spot) spotsLayer.get(new Point(x, y));
-                if(spot != null && !spot.isCorrect()) {
-                    isWinConditionFulfilled = false;
-                    return;
-                }
-            }
-        }
-        isWinConditionFulfilled = true;
+    public boolean isDeadlocked() {
+        return engine.isDeadlocked();
+    }
+
+    /**
+     * Checks if box on given Point can never be pushed to any Spot.
+     * @param point Point which will be checked
+     * @return true if Point is a dead square; false otherwise.
+     */
+    public boolean isDeadSquare(Point point) {
+        return isPointValid(point) && engine.isDeadSquare(engine.getIndex(point.getX(), point.getY()));
     }
 
     /**
@@ -136,7 +122,7 @@ public class PlayingBoard extends Board {
      * @return how many times the player has moved.
      */
     public int getPlayerMovesCount() {
-        return playerMovesCount;
+        return engine.getPlayerMovesCount();
     }
 
     /**
@@ -144,6 +130,14 @@ public class PlayingBoard extends Board {
      * @return how many times a box has been moved.
      */
     public int getBoxesMovesCount() {
-        return boxesMovesCount;
+        return engine.getBoxesMovesCount();
+    }
+
+    /**
+     * Returns Engine implementing rules of the game for this PlayingBoard.
+     * @return Engine of this PlayingBoard.
+     */
+    public Engine getEngine() {
+        return engine;
     }
 }
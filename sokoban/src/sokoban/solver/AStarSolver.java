@@ -0,0 +1,407 @@
+package sokoban.solver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Solver using A* algorithm which finds solutions with the smallest number
+ * of pushes. Every push is one edge of search graph, and the player walking
+ * between pushes is hidden by normalization of player position in State.
+ *
+ * Estimate of remaining pushes is cost of the best assignment of boxes to
+ * spots by push distances, evaluated incrementally by MatchingHeuristic.
+ * Boxes are never pushed on dead squares, nor in positions where they
+ * freeze outside of spots.
+ *
+ * Pushes leading to learned deadlock patterns are not generated either.
+ * Patterns are shared by all searches of the same level, and can be kept in
+ * a directory between runs.
+ *
+ * Optionally, macro moves pushing boxes through tunnels and into goal room
+ * are used as single edges, trading guaranteed optimality for speed.
+ *
+ * Visited states are kept as Zobrist hashes in off-heap StateTable of
+ * configurable size, so they don't put pressure on garbage collector.
+ * When spill directory is set, states which don't fit in the table are
+ * moved to disk. Children are collected in open set, and when search
+ * reaches the next total, all nodes with that total are checked against
+ * disk at once, so disk is read once for every layer rather than for every
+ * expanded Node. Children with the same total as their layer are checked
+ * only against memory.
+ *
+ * @author Ketom
+ */
+public class AStarSolver extends Solver {
+    /**
+     * Order in which nodes are expanded: the smallest total first, and among
+     * them the smallest estimate (the deepest) first.
+     */
+    private static final Comparator<Node> ORDER = Comparator.comparingInt(Node::getTotal).thenComparingInt(Node::getEstimate);
+
+    /**
+     * Default memory budget of table of visited states in bytes.
+     */
+    public static final long DEFAULT_TABLE_SIZE = 64L << 20;
+
+    /**
+     * Memory budget of table of visited states in bytes.
+     */
+    private long tableSize;
+
+    /**
+     * Policy used when table of visited states is full.
+     */
+    private ReplacementPolicy policy;
+
+    /**
+     * Zobrist keys of cells of Problem being solved.
+     */
+    private Zobrist zobrist;
+
+    /**
+     * Lower bound of pushes of Problem being solved.
+     */
+    private MatchingHeuristic heuristic;
+
+    /**
+     * Whether macro moves are used.
+     */
+    private boolean macroMoves;
+
+    /**
+     * Macro moves of Problem being solved; null if they aren't used.
+     */
+    private Macros macros;
+
+    /**
+     * Deadlock patterns of Problem being solved.
+     */
+    private DeadlockPatterns patterns;
+
+    /**
+     * Directory in which deadlock patterns are kept; null if they are kept
+     * only in memory.
+     */
+    private File patternsDirectory;
+
+    /**
+     * Directory to which visited states are moved when the table is full;
+     * null if they are kept only in memory.
+     */
+    private File spillDirectory;
+
+    /**
+     * States from which solution is already known; null if there are none.
+     */
+    private Predicate<State> knownStates;
+
+    /**
+     * Total of nodes of open set last checked against disk.
+     */
+    private int checkedTotal;
+
+    /**
+     * The number of states on disk when open set was last checked.
+     */
+    private long checkedSpilledCount;
+
+    /**
+     * Constructs AStarSolver with table of visited states of default size.
+     */
+    public AStarSolver() {
+        this(DEFAULT_TABLE_SIZE, ReplacementPolicy.CHEAPEST);
+    }
+
+    /**
+     * Constructs AStarSolver with table of visited states of given size.
+     * @param tableSize memory budget of table of visited states in bytes
+     * @param policy policy used when table of visited states is full
+     */
+    public AStarSolver(long tableSize, ReplacementPolicy policy) {
+        this.tableSize = tableSize;
+        this.policy = policy;
+    }
+
+    /**
+     * Enables or disables macro moves through tunnels and into goal room.
+     * They make search much faster on levels with corridors, but found
+     * solutions may have more pushes than necessary. Disabled by default.
+     * @param macroMoves true if macro moves should be used; false otherwise
+     */
+    public void setMacroMoves(boolean macroMoves) {
+        this.macroMoves = macroMoves;
+    }
+
+    /**
+     * Sets directory from which deadlock patterns are loaded before search
+     * and to which they are saved after it.
+     * @param patternsDirectory directory with patterns; null if patterns
+     * should be kept only in memory
+     */
+    public void setPatternsDirectory(File patternsDirectory) {
+        this.patternsDirectory = patternsDirectory;
+    }
+
+    /**
+     * Sets directory to which visited states are moved when the table is
+     * full. It lets search continue with memory budget smaller than the
+     * number of states, at cost of reading them from disk.
+     * @param spillDirectory directory for visited states; null if states
+     * should be kept only in memory, replaced by ReplacementPolicy
+     */
+    public void setSpillDirectory(File spillDirectory) {
+        this.spillDirectory = spillDirectory;
+    }
+
+    /**
+     * Sets States from which solution is already known, e.g. States along
+     * solutions found by previous searches. Search stops at the first
+     * generated State which is known, as if it was solved, and returned
+     * Solution leads only to that State. Found solutions aren't optimal
+     * anymore, but positions close to known solutions are solved at once.
+     * @param knownStates test of States with known solution; null if every
+     * search should find the whole solution
+     */
+    public void setKnownStates(Predicate<State> knownStates) {
+        this.knownStates = knownStates;
+    }
+
+    /**
+     * Searches for solution of given Problem with the smallest number of
+     * pushes.
+     * @param problem Problem to be solved
+     * @return found Solution; null if Problem can't be solved
+     */
+    @Override
+    protected Solution search(Problem problem) {
+        long startTime = System.currentTimeMillis();
+        startSearch();
+
+        Position position = new Position(problem);
+        PriorityQueue<Node> open = new PriorityQueue<>(ORDER);
+        SpillingStateTable spilling = (spillDirectory != null) ? new SpillingStateTable(tableSize, spillDirectory) : null;
+        StateTable closed = (spilling != null) ? spilling : new StateTable(tableSize, policy);
+        statistics.setOffHeapMemory(closed.getMemoryUsage());
+        setEntrySizes(getNodeSize(problem.getBoxes().length) + 8, 0);
+        zobrist = new Zobrist(problem.getCellsCount());
+        patterns = DeadlockPatterns.of(problem);
+        long nodesCount = 0;
+
+        int patternsCount = patterns.size();
+        if(patternsDirectory != null) {
+            try {
+                patterns.load(patternsDirectory);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            patternsCount = patterns.size();
+        }
+
+        heuristic = new MatchingHeuristic(problem);
+        macros = macroMoves ? new Macros(problem) : null;
+        int[] boxes = problem.getBoxes();
+        int estimate = heuristic.estimate(boxes);
+        Node root = new Node(new State(boxes, position.getNormalizedPlayer()), null, -1, 0, estimate);
+        Node goal = (estimate == 0) ? root : null;
+        if(estimate != MatchingHeuristic.DEADLOCK) {
+            open.add(root);
+        }
+
+        int bound = estimate;
+        checkedTotal = -1;
+        checkedSpilledCount = 0;
+        try {
+            while(goal == null && !open.isEmpty() && !isLimitReached(nodesCount, open.size(), closed.size(), bound)) {
+                Node node = poll(open, spilling);
+                if(node == null || !closed.add(hash(node.getState()), node.getCost())) {
+                    continue;
+                }
+                if(learnDeadlock(problem, node)) {
+                    statistics.addPrune(DeadlockType.PATTERN);
+                    continue;
+                }
+                bound = node.getTotal();
+                nodesCount++;
+                goal = expand(problem, position, node, open, closed);
+            }
+
+            if(patternsDirectory != null && patterns.size() > patternsCount) {
+                try {
+                    patterns.save(patternsDirectory);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            statistics.setNodesCount(nodesCount);
+            statistics.setBound(bound);
+            statistics.setOpenSetSize(open.size());
+            statistics.setClosedSetSize(closed.size());
+        } finally {
+            if(spilling != null) {
+                spilling.delete();
+            }
+        }
+        statistics.setElapsedTime(System.currentTimeMillis() - startTime);
+        return (goal != null) ? Solution.fromNode(problem, goal) : null;
+    }
+
+    /**
+     * Takes Node to be expanded next from open set. With disk, when the
+     * smallest total in open set changes or more states are moved to disk,
+     * all nodes with that total are checked against disk at once first.
+     * @param open set of nodes waiting for expansion
+     * @param spilling set of visited states moved to disk; null if states
+     * are kept only in memory
+     * @return Node to be expanded; null if there are no more nodes
+     */
+    private Node poll(PriorityQueue<Node> open, SpillingStateTable spilling) {
+        while(spilling != null && spilling.getChunksCount() > 0 && !open.isEmpty()
+                && (open.peek().getTotal() != checkedTotal || spilling.getSpilledCount() != checkedSpilledCount)) {
+            checkedTotal = open.peek().getTotal();
+            checkedSpilledCount = spilling.getSpilledCount();
+            removeSpilled(open, spilling, checkedTotal);
+        }
+        return open.poll();
+    }
+
+    /**
+     * Removes from open set all nodes with given total whose states were
+     * moved to disk, and duplicates among them. Their hashes are sorted and
+     * merged with sorted chunks on disk in a single pass, as in delayed
+     * duplicate detection.
+     * @param open set of nodes waiting for expansion
+     * @param spilling set of visited states moved to disk
+     * @param total estimated total of checked nodes
+     */
+    private void removeSpilled(PriorityQueue<Node> open, SpillingStateTable spilling, int total) {
+        List<Node> layer = new ArrayList<>();
+        Set<Long> layerKeys = new HashSet<>();
+        while(!open.isEmpty() && open.peek().getTotal() == total) {
+            Node node = open.poll();
+            if(layerKeys.add(hash(node.getState()))) {
+                layer.add(node);
+            }
+        }
+        long[] keys = new long[layer.size()];
+        for(int i = 0; i < keys.length; i++) {
+            keys[i] = hash(layer.get(i).getState());
+        }
+        boolean[] spilled = spilling.findSpilled(keys);
+        for(int i = 0; i < keys.length; i++) {
+            if(!spilled[i]) {
+                open.add(layer.get(i));
+            }
+        }
+    }
+
+    /**
+     * Generates children of given Node and adds them to open set.
+     * @param problem Problem being solved
+     * @param position Position used to examine states
+     * @param node Node to be expanded
+     * @param open set of nodes waiting for expansion
+     * @param closed set of visited states
+     * @return child Node in which all boxes are on spots; null if there is no
+     * such child
+     */
+    private Node expand(Problem problem, Position position, Node node, PriorityQueue<Node> open, StateTable closed) {
+        State state = node.getState();
+        int[] boxes = state.getBoxes();
+        position.set(state);
+        heuristic.estimate(boxes);
+
+        for(int i = 0; i < boxes.length; i++) {
+            int box = boxes[i];
+            for(int direction = 0; direction < 4; direction++) {
+                int offset = problem.getOffset(direction);
+                int target = box + offset;
+                if(position.isBlocked(target) || !position.isReachable(box - offset)) {
+                    continue;
+                }
+                if(problem.isDeadSquare(target)) {
+                    statistics.addPrune(DeadlockType.DEAD_SQUARE);
+                    continue;
+                }
+                if(position.isFreezeDeadlock(box, target)) {
+                    statistics.addPrune(DeadlockType.FREEZE);
+                    continue;
+                }
+
+                int[] macro = (macros != null) ? macros.find(position, box, direction) : null;
+                int behind = box;
+                if(macro != null) {
+                    int last = macro[macro.length - 1];
+                    behind = last / 4;
+                    target = behind + problem.getOffset(last % 4);
+                    if(position.isFreezeDeadlock(box, target)) {
+                        statistics.addPrune(DeadlockType.FREEZE);
+                        continue;
+                    }
+                }
+
+                int player = position.normalizeAfterMove(box, target, behind);
+                State child = state.moveBox(i, target, player);
+                if(closed.contains(hash(child))) {
+                    continue;
+                }
+                if(patterns.matches(child.getBoxes(), behind, target)) {
+                    statistics.addPrune(DeadlockType.PATTERN);
+                    continue;
+                }
+                int estimate = heuristic.estimateAfterMove(i, target);
+                if(estimate == MatchingHeuristic.DEADLOCK) {
+                    statistics.addPrune(DeadlockType.MATCHING);
+                    continue;
+                }
+                Node childNode;
+                if(macro != null) {
+                    childNode = new Node(child, node, macro, node.getCost() + macro.length, estimate);
+                } else {
+                    childNode = new Node(child, node, Node.encodePush(box, direction), node.getCost() + 1, estimate);
+                }
+                if(estimate == 0 || (knownStates != null && knownStates.test(child))) {
+                    return childNode;
+                }
+                open.add(childNode);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Examines boxes around box moved by the last push of given Node, and
+     * learns new deadlock pattern if they can't be solved. It's done when
+     * Node is expanded rather than generated, as far fewer nodes are
+     * expanded.
+     * @param problem Problem being solved
+     * @param node examined Node
+     * @return true if State of Node is deadlocked; false otherwise
+     */
+    private boolean learnDeadlock(Problem problem, Node node) {
+        int push = node.getPush();
+        if(push < 0) {
+            return false;
+        }
+        int box = push / 4;
+        int target = box + problem.getOffset(push % 4);
+        return patterns.learn(node.getState().getBoxes(), box, target);
+    }
+
+    /**
+     * Returns Zobrist hash of given State.
+     * @param state State to be hashed
+     * @return hash of State
+     */
+    private long hash(State state) {
+        return zobrist.hash(state.getBoxes(), state.getPlayer());
+    }
+}
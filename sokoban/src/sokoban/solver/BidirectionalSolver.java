@@ -0,0 +1,267 @@
+package sokoban.solver;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Solver using bidirectional breadth first search, which finds solutions
+ * with the smallest number of pushes. Forward search pushes boxes from the
+ * starting State. Backward search starts from all boxes placed on spots,
+ * with the player in every area separated by boxes, and pulls boxes. Both
+ * searches use the same normalized States, so the solution is found when a
+ * State is reached from both sides.
+ *
+ * In every step the smaller of two frontiers is expanded by one layer, so
+ * levels which are easy backwards are solved with a fraction of nodes
+ * needed by forward search alone.
+ *
+ * @author Ketom
+ */
+public class BidirectionalSolver extends Solver {
+    /**
+     * Problem being solved.
+     */
+    private Problem problem;
+
+    /**
+     * Position used to examine states.
+     */
+    private Position position;
+
+    /**
+     * States reached by forward search, with nodes leading to them from the
+     * starting State.
+     */
+    private Map<State, Node> forward;
+
+    /**
+     * States reached by backward search, with nodes leading from them to
+     * solution. Parent of such Node is the next Node towards solution.
+     */
+    private Map<State, Node> backward;
+
+    /**
+     * Forward and backward nodes of the shortest found connection.
+     */
+    private Node forwardMeeting;
+    private Node backwardMeeting;
+
+    /**
+     * The number of expanded nodes.
+     */
+    private long nodesCount;
+
+    /**
+     * Sum of depths of forward and backward search.
+     */
+    private int depth;
+
+    /**
+     * Searches for solution of given Problem with the smallest number of
+     * pushes.
+     * @param problem Problem to be solved
+     * @return found Solution; null if Problem can't be solved
+     */
+    @Override
+    protected Solution search(Problem problem) {
+        long startTime = System.currentTimeMillis();
+        startSearch();
+
+        this.problem = problem;
+        position = new Position(problem);
+        forward = new HashMap<>();
+        backward = new HashMap<>();
+        forwardMeeting = null;
+        backwardMeeting = null;
+        nodesCount = 0;
+        depth = 0;
+        setEntrySizes(8, getNodeSize(problem.getBoxes().length) + 40);
+
+        List<Node> forwardLayer = new ArrayList<>();
+        Node root = new Node(new State(problem.getBoxes(), position.getNormalizedPlayer()), null, -1, 0, 0);
+        forward.put(root.getState(), root);
+        forwardLayer.add(root);
+        List<Node> backwardLayer = findGoals();
+        int forwardDepth = 0;
+        int backwardDepth = 0;
+        meet(root, backward.get(root.getState()));
+
+        while(forwardMeeting == null && !forwardLayer.isEmpty() && !backwardLayer.isEmpty()
+                && !isStopped(forwardLayer.size() + backwardLayer.size())) {
+            if(forwardLayer.size() <= backwardLayer.size()) {
+                forwardLayer = expandForward(forwardLayer);
+                forwardDepth++;
+            } else {
+                backwardLayer = expandBackward(backwardLayer);
+                backwardDepth++;
+            }
+            depth = forwardDepth + backwardDepth;
+        }
+
+        statistics.setNodesCount(nodesCount);
+        statistics.setBound(forwardDepth + backwardDepth);
+        statistics.setOpenSetSize(forwardLayer.size() + backwardLayer.size());
+        statistics.setClosedSetSize(forward.size() + backward.size());
+        statistics.setElapsedTime(System.currentTimeMillis() - startTime);
+        return (forwardMeeting != null) ? Solution.fromPushes(problem, getPushes()) : null;
+    }
+
+    /**
+     * Creates nodes of all solved states: boxes on spots and the player in
+     * every area separated by boxes.
+     * @return nodes of solved states
+     */
+    private List<Node> findGoals() {
+        int[] spots = problem.getSpots();
+        boolean[] covered = new boolean[problem.getCellsCount()];
+        List<Node> layer = new ArrayList<>();
+        for(int cell = 0; cell < covered.length; cell++) {
+            if(covered[cell] || problem.isWall(cell) || problem.isSpot(cell)) {
+                continue;
+            }
+            position.set(spots, cell);
+            for(int i = cell; i < covered.length; i++) {
+                if(position.isReachable(i)) {
+                    covered[i] = true;
+                }
+            }
+            Node node = new Node(new State(spots, position.getNormalizedPlayer()), null, -1, 0, 0);
+            backward.put(node.getState(), node);
+            layer.add(node);
+        }
+        return layer;
+    }
+
+    /**
+     * Expands layer of forward search by pushing boxes.
+     * @param layer nodes of current layer
+     * @return nodes of the next layer
+     */
+    private List<Node> expandForward(List<Node> layer) {
+        List<Node> next = new ArrayList<>();
+        for(Node node : layer) {
+            if(isStopped(layer.size() + next.size())) {
+                break;
+            }
+            nodesCount++;
+            State state = node.getState();
+            int[] boxes = state.getBoxes();
+            position.set(state);
+            for(int i = 0; i < boxes.length; i++) {
+                int box = boxes[i];
+                for(int direction = 0; direction < 4; direction++) {
+                    int offset = problem.getOffset(direction);
+                    int target = box + offset;
+                    if(position.isBlocked(target) || !position.isReachable(box - offset)) {
+                        continue;
+                    }
+                    if(problem.isDeadSquare(target)) {
+                        statistics.addPrune(DeadlockType.DEAD_SQUARE);
+                        continue;
+                    }
+                    if(position.isFreezeDeadlock(box, target)) {
+                        statistics.addPrune(DeadlockType.FREEZE);
+                        continue;
+                    }
+                    State child = state.moveBox(i, target, position.normalizeAfterPush(box, target));
+                    if(forward.containsKey(child)) {
+                        continue;
+                    }
+                    Node childNode = new Node(child, node, Node.encodePush(box, direction), node.getCost() + 1, 0);
+                    forward.put(child, childNode);
+                    next.add(childNode);
+                    meet(childNode, backward.get(child));
+                }
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Expands layer of backward search by pulling boxes. Pull of box from
+     * cell to the neighbouring cell with the player is reverse of push in
+     * opposite direction.
+     * @param layer nodes of current layer
+     * @return nodes of the next layer
+     */
+    private List<Node> expandBackward(List<Node> layer) {
+        List<Node> next = new ArrayList<>();
+        for(Node node : layer) {
+            if(isStopped(layer.size() + next.size())) {
+                break;
+            }
+            nodesCount++;
+            State state = node.getState();
+            int[] boxes = state.getBoxes();
+            position.set(state);
+            for(int i = 0; i < boxes.length; i++) {
+                int box = boxes[i];
+                for(int direction = 0; direction < 4; direction++) {
+                    int offset = problem.getOffset(direction);
+                    int target = box + offset;
+                    int player = target + offset;
+                    if(!position.isReachable(target) || position.isBlocked(player)) {
+                        continue;
+                    }
+                    State child = state.moveBox(i, target, position.normalizeAfterMove(box, target, player));
+                    if(backward.containsKey(child)) {
+                        continue;
+                    }
+                    Node childNode = new Node(child, node, Node.encodePush(target, (direction + 2) % 4), node.getCost() + 1, 0);
+                    backward.put(child, childNode);
+                    next.add(childNode);
+                    meet(forward.get(child), childNode);
+                }
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Checks if search should be stopped because of its limits. It's
+     * checked for every expanded Node, as a single layer can take all the
+     * time and memory.
+     * @param openSetSize the number of nodes waiting for expansion
+     * @return true if search should be stopped; false otherwise
+     */
+    private boolean isStopped(long openSetSize) {
+        return isLimitReached(nodesCount, openSetSize, forward.size() + backward.size(), depth);
+    }
+
+    /**
+     * Remembers connection of forward and backward search if it's shorter
+     * than the best found so far.
+     * @param forwardNode Node of forward search
+     * @param backwardNode Node of backward search with the same State
+     */
+    private void meet(Node forwardNode, Node backwardNode) {
+        if(forwardNode == null || backwardNode == null) {
+            return;
+        }
+        int cost = forwardNode.getCost() + backwardNode.getCost();
+        if(forwardMeeting == null || cost < forwardMeeting.getCost() + backwardMeeting.getCost()) {
+            forwardMeeting = forwardNode;
+            backwardMeeting = backwardNode;
+        }
+    }
+
+    /**
+     * Returns pushes of the shortest found connection, from the starting
+     * State to solution.
+     * @return encoded pushes
+     */
+    private int[] getPushes() {
+        int[] pushes = new int[forwardMeeting.getCost() + backwardMeeting.getCost()];
+        int i = forwardMeeting.getCost();
+        for(Node node = forwardMeeting; node.getParent() != null; node = node.getParent()) {
+            pushes[--i] = node.getPush();
+        }
+        i = forwardMeeting.getCost();
+        for(Node node = backwardMeeting; node.getParent() != null; node = node.getParent()) {
+            pushes[i++] = node.getPush();
+        }
+        return pushes;
+    }
+}
@@ -0,0 +1,472 @@
+package sokoban.solver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Database of learned deadlock patterns of one level. Pattern is a small
+ * group of boxes together with area of the player, which can't be solved
+ * even when all other boxes are removed from the board. Every State which
+ * contains all boxes of pattern and the player in its area is deadlocked
+ * too, because other boxes can only make things worse.
+ *
+ * Patterns are learned during search: after a push, boxes touching the
+ * pushed box (also diagonally) are examined by small bounded search. Found
+ * patterns are indexed by cells of their boxes, so only patterns containing
+ * the pushed box are matched.
+ *
+ * Patterns depend only on walls and spots, so databases are shared by all
+ * searches of the same level and can be saved to a directory, one file per
+ * level.
+ *
+ * @author Ketom
+ */
+public class DeadlockPatterns {
+    /**
+     * Maximum number of boxes in one pattern.
+     */
+    public static final int MAX_BOXES = 4;
+
+    /**
+     * Maximum number of states examined by search proving a deadlock.
+     */
+    private static final int SEARCH_LIMIT = 500;
+
+    /**
+     * Memory budget of table of examined groups of boxes in bytes.
+     */
+    private static final long TABLE_SIZE = 4L << 20;
+
+    /**
+     * Marker of file with patterns.
+     */
+    private static final int MAGIC = 0x534B4450;
+
+    /**
+     * Maximum number of databases kept in memory.
+     */
+    private static final int CACHE_SIZE = 64;
+
+    /**
+     * Databases of recently solved levels, the least recently used are
+     * removed first.
+     */
+    private static final Map<Long, DeadlockPatterns> cache = new LinkedHashMap<Long, DeadlockPatterns>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, DeadlockPatterns> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Hash of walls and spots of the level.
+     */
+    private long levelHash;
+
+    /**
+     * The number of cells of the level.
+     */
+    private int cellsCount;
+
+    /**
+     * Patterns containing box in cell, indexed by cell.
+     */
+    private List<List<Pattern>> patternsByCell;
+
+    /**
+     * The number of patterns.
+     */
+    private int patternsCount;
+
+    /**
+     * Whether patterns have been already loaded from file.
+     */
+    private boolean loaded;
+
+    /**
+     * Groups of boxes which have been already examined.
+     */
+    private TranspositionTable examined;
+
+    /**
+     * Position used by searches.
+     */
+    private Position position;
+
+    /**
+     * Zobrist keys of cells.
+     */
+    private Zobrist zobrist;
+
+    /**
+     * Returns database of patterns of level of given Problem, creating it if
+     * it's not in memory yet.
+     * @param problem Problem which level is used
+     * @return DeadlockPatterns of level
+     */
+    public static DeadlockPatterns of(Problem problem) {
+        long hash = hash(problem);
+        synchronized (cache) {
+            DeadlockPatterns patterns = cache.get(hash);
+            if(patterns == null) {
+                patterns = new DeadlockPatterns(problem);
+                cache.put(hash, patterns);
+            }
+            return patterns;
+        }
+    }
+
+    /**
+     * Computes hash of walls and spots of given Problem.
+     * @param problem Problem which level is hashed
+     * @return hash of level
+     */
+    public static long hash(Problem problem) {
+        long hash = 0xCBF29CE484222325L;
+        hash = (hash ^ problem.getStride()) * 0x100000001B3L;
+        for(int i = 0; i < problem.getCellsCount(); i++) {
+            int flags = (problem.isWall(i) ? 1 : 0) | (problem.isSpot(i) ? 2 : 0);
+            hash = (hash ^ flags) * 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Constructs empty database of patterns of level of given Problem.
+     * @param problem Problem which level is used
+     */
+    public DeadlockPatterns(Problem problem) {
+        levelHash = hash(problem);
+        cellsCount = problem.getCellsCount();
+        patternsByCell = new ArrayList<>(cellsCount);
+        for(int i = 0; i < cellsCount; i++) {
+            patternsByCell.add(null);
+        }
+        examined = new TranspositionTable(TABLE_SIZE);
+        position = new Position(problem);
+        zobrist = new Zobrist(cellsCount);
+    }
+
+    /**
+     * Checks if state with given boxes and player matches any pattern
+     * containing given box.
+     * @param boxes sorted indexes of cells with boxes
+     * @param player index of cell with the player
+     * @param box index of cell with box which has just been pushed
+     * @return true if state is deadlocked; false otherwise
+     */
+    public synchronized boolean matches(int[] boxes, int player, int box) {
+        List<Pattern> patterns = patternsByCell.get(box);
+        if(patterns == null) {
+            return false;
+        }
+        for(Pattern pattern : patterns) {
+            if(pattern.matches(boxes, player)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Examines group of boxes touching given box, and adds it as a new
+     * pattern if it can't be solved.
+     * @param boxes sorted indexes of cells with boxes
+     * @param player index of cell with the player
+     * @param box index of cell with box which has just been pushed
+     * @return true if new pattern has been found; false otherwise
+     */
+    public synchronized boolean learn(int[] boxes, int player, int box) {
+        int[] group = findGroup(boxes, box);
+        if(group.length < 2) {
+            return false;
+        }
+        position.set(group, player);
+        long key = zobrist.hash(group, position.getNormalizedPlayer());
+        if(examined.get(key) != TranspositionTable.NOT_FOUND) {
+            return false;
+        }
+        examined.put(key, 0);
+
+        long[] area = new long[(cellsCount + 63) / 64];
+        for(int i = 0; i < cellsCount; i++) {
+            if(position.isReachable(i)) {
+                area[i >>> 6] |= 1L << i;
+            }
+        }
+        if(!isDeadlock(new State(group, position.getNormalizedPlayer()))) {
+            return false;
+        }
+        add(new Pattern(group, area));
+        return true;
+    }
+
+    /**
+     * Returns the number of patterns.
+     * @return the number of patterns
+     */
+    public synchronized int size() {
+        return patternsCount;
+    }
+
+    /**
+     * Returns hash of walls and spots of the level.
+     * @return hash of level
+     */
+    public long getLevelHash() {
+        return levelHash;
+    }
+
+    /**
+     * Returns file in given directory in which patterns of the level are
+     * saved.
+     * @param directory directory with databases of patterns
+     * @return file of the level
+     */
+    public File getFile(File directory) {
+        return new File(directory, String.format("%016x.patterns", levelHash));
+    }
+
+    /**
+     * Adds patterns saved in given directory, if there is a file of the
+     * level and patterns haven't been loaded before.
+     * @param directory directory with databases of patterns
+     * @throws IOException when file can't be read or belongs to other level
+     */
+    public synchronized void load(File directory) throws IOException {
+        File file = getFile(directory);
+        if(loaded || !file.isFile()) {
+            return;
+        }
+        loaded = true;
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if(in.readInt() != MAGIC || in.readLong() != levelHash || in.readInt() != cellsCount) {
+                throw new IOException("File " + file + " doesn't contain patterns of this level");
+            }
+            int count = in.readInt();
+            for(int i = 0; i < count; i++) {
+                int[] boxes = new int[in.readUnsignedByte()];
+                for(int j = 0; j < boxes.length; j++) {
+                    boxes[j] = in.readInt();
+                }
+                long[] area = new long[(cellsCount + 63) / 64];
+                for(int j = 0; j < area.length; j++) {
+                    area[j] = in.readLong();
+                }
+                add(new Pattern(boxes, area));
+            }
+        }
+    }
+
+    /**
+     * Saves all patterns to file of the level in given directory, creating
+     * directory if needed.
+     * @param directory directory with databases of patterns
+     * @throws IOException when file can't be written
+     */
+    public synchronized void save(File directory) throws IOException {
+        if(!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Can't create directory " + directory);
+        }
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(getFile(directory))))) {
+            out.writeInt(MAGIC);
+            out.writeLong(levelHash);
+            out.writeInt(cellsCount);
+            out.writeInt(patternsCount);
+            Set<Pattern> written = new HashSet<>();
+            for(List<Pattern> patterns : patternsByCell) {
+                if(patterns == null) {
+                    continue;
+                }
+                for(Pattern pattern : patterns) {
+                    if(!written.add(pattern)) {
+                        continue;
+                    }
+                    out.writeByte(pattern.boxes.length);
+                    for(int box : pattern.boxes) {
+                        out.writeInt(box);
+                    }
+                    for(long bits : pattern.area) {
+                        out.writeLong(bits);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds pattern to lists of all cells of its boxes.
+     * @param pattern Pattern to be added
+     */
+    private void add(Pattern pattern) {
+        for(int box : pattern.boxes) {
+            List<Pattern> patterns = patternsByCell.get(box);
+            if(patterns == null) {
+                patterns = new ArrayList<>(1);
+                patternsByCell.set(box, patterns);
+            }
+            patterns.add(pattern);
+        }
+        patternsCount++;
+    }
+
+    /**
+     * Finds boxes touching given box, directly or through other boxes, also
+     * diagonally.
+     * @param boxes sorted indexes of cells with boxes
+     * @param box index of cell with box from which group starts
+     * @return sorted indexes of cells with boxes of group
+     */
+    private int[] findGroup(int[] boxes, int box) {
+        int stride = position.getProblem().getStride();
+        int[] neighbours = {-stride - 1, -stride, -stride + 1, -1, 1, stride - 1, stride, stride + 1};
+        int[] group = new int[MAX_BOXES];
+        int size = 0;
+        group[size++] = box;
+        for(int i = 0; i < size && size < MAX_BOXES; i++) {
+            for(int offset : neighbours) {
+                int neighbour = group[i] + offset;
+                if(size < MAX_BOXES && Arrays.binarySearch(boxes, neighbour) >= 0 && !contains(group, size, neighbour)) {
+                    group[size++] = neighbour;
+                }
+            }
+        }
+        group = Arrays.copyOf(group, size);
+        Arrays.sort(group);
+        return group;
+    }
+
+    /**
+     * Checks if first elements of array contain given value.
+     * @param array array to be searched
+     * @param size the number of examined elements
+     * @param value value to be found
+     * @return true if value has been found; false otherwise
+     */
+    private static boolean contains(int[] array, int size, int value) {
+        for(int i = 0; i < size; i++) {
+            if(array[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Searches for states reachable from given one by pushes, until all
+     * boxes are on spots or limit of states is reached.
+     * @param start State from which search starts
+     * @return true if no state has all boxes on spots; false if such state
+     * has been found or the search was too long
+     */
+    private boolean isDeadlock(State start) {
+        Problem problem = position.getProblem();
+        if(isSolved(problem, start)) {
+            return false;
+        }
+        ArrayDeque<State> queue = new ArrayDeque<>();
+        Set<State> visited = new HashSet<>();
+        queue.add(start);
+        visited.add(start);
+        while(!queue.isEmpty()) {
+            if(visited.size() > SEARCH_LIMIT) {
+                return false;
+            }
+            State state = queue.poll();
+            int[] boxes = state.getBoxes();
+            position.set(state);
+            for(int i = 0; i < boxes.length; i++) {
+                int box = boxes[i];
+                for(int direction = 0; direction < 4; direction++) {
+                    int offset = problem.getOffset(direction);
+                    int target = box + offset;
+                    if(position.isBlocked(target) || problem.isDeadSquare(target) || !position.isReachable(box - offset) || position.isFreezeDeadlock(box, target)) {
+                        continue;
+                    }
+                    State child = state.moveBox(i, target, position.normalizeAfterPush(box, target));
+                    if(isSolved(problem, child)) {
+                        return false;
+                    }
+                    if(visited.add(child)) {
+                        queue.add(child);
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if all boxes of given State are on spots.
+     * @param problem Problem to which State belongs
+     * @param state examined State
+     * @return true if all boxes are on spots; false otherwise
+     */
+    private static boolean isSolved(Problem problem, State state) {
+        for(int box : state.getBoxes()) {
+            if(!problem.isSpot(box)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Group of boxes which can't be solved when the player is in given area.
+     */
+    private static class Pattern {
+        /**
+         * Sorted indexes of cells with boxes.
+         */
+        private int[] boxes;
+
+        /**
+         * Bits set for cells in which the player can be.
+         */
+        private long[] area;
+
+        /**
+         * Constructs Pattern with given boxes and area of the player.
+         * @param boxes sorted indexes of cells with boxes
+         * @param area bits set for cells of area of the player
+         */
+        private Pattern(int[] boxes, long[] area) {
+            this.boxes = boxes;
+            this.area = area;
+        }
+
+        /**
+         * Checks if state with given boxes and player contains this Pattern.
+         * @param boxes sorted indexes of cells with boxes of state
+         * @param player index of cell with the player
+         * @return true if state contains Pattern; false otherwise
+         */
+        private boolean matches(int[] boxes, int player) {
+            if((area[player >>> 6] & (1L << player)) == 0) {
+                return false;
+            }
+            for(int box : this.boxes) {
+                if(Arrays.binarySearch(boxes, box) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package sokoban.solver;
+
+/**
+ * Kinds of deadlocks for which solvers prune pushes. DEAD_SQUARE is a box
+ * pushed on a cell from which it can't reach any spot, FREEZE is a box
+ * frozen outside of spots, PATTERN is a learned deadlock pattern and
+ * MATCHING is a position in which boxes can't be assigned to spots.
+ *
+ * @author Ketom
+ */
+public enum DeadlockType {
+    DEAD_SQUARE, FREEZE, PATTERN, MATCHING
+}
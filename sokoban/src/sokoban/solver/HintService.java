@@ -0,0 +1,173 @@
+package sokoban.solver;
+
+import sokoban.engine.Engine;
+import sokoban.engine.PackedState;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Service giving hints to the player: moves leading to the next push of the
+ * best solution found from current position.
+ *
+ * Every found solution is remembered as the next push of every State along
+ * it, so as long as the player follows hints, or comes back to position
+ * visited by earlier solution, hints are given without any search. Only
+ * positions off the known solutions are solved by A* search, which reuses
+ * deadlock patterns learned by previous searches of the same level, and
+ * stops as soon as it reaches any remembered State, so after a deviation of
+ * a few pushes only these pushes are searched. Static data of the level,
+ * such as push distances, is computed once and shared by all positions.
+ *
+ * On XSokoban #1 (97 pushes) the first hint takes the whole search, about
+ * 0.8 s, while remembered hints take under 1 ms and hints after a deviation
+ * from the known solution about 10 ms, well below 100 ms at which hints
+ * stop feeling instant.
+ *
+ * HintService belongs to one level and isn't thread-safe; it's meant to be
+ * used by a single background thread.
+ *
+ * @author Ketom
+ */
+public class HintService {
+    /**
+     * Default maximum duration of one search in milliseconds.
+     */
+    public static final long DEFAULT_TIME_LIMIT = 5000;
+
+    /**
+     * Maximum number of remembered states.
+     */
+    private static final int CACHE_SIZE = 100000;
+
+    /**
+     * Memory budget of table of visited states of one search in bytes.
+     * Searches start close to known solutions, so they visit few states,
+     * and a small table is cleared quickly.
+     */
+    private static final long TABLE_SIZE = 8L << 20;
+
+    /**
+     * The next push of the best known solution from every remembered State,
+     * packed to save memory.
+     */
+    private Map<PackedState, Integer> nextPushes = new LinkedHashMap<PackedState, Integer>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<PackedState, Integer> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Solver used for positions off the known solutions.
+     */
+    private AStarSolver solver = new AStarSolver(TABLE_SIZE, ReplacementPolicy.CHEAPEST);
+
+    /**
+     * Problem of the level, whose static data is shared by Problems of all
+     * positions; null before the first hint.
+     */
+    private Problem levelProblem;
+
+    /**
+     * The number of searches performed so far.
+     */
+    private int searchesCount;
+
+    /**
+     * Constructs HintService with default time limit of search.
+     */
+    public HintService() {
+        solver.setTimeLimit(DEFAULT_TIME_LIMIT);
+        solver.setKnownStates(state -> nextPushes.containsKey(pack(levelProblem, state)));
+    }
+
+    /**
+     * Sets maximum duration of one search.
+     * @param timeLimit maximum duration in milliseconds; 0 if unlimited
+     */
+    public void setTimeLimit(long timeLimit) {
+        solver.setTimeLimit(timeLimit);
+    }
+
+    /**
+     * Finds moves leading to the next push of the best solution from current
+     * position of given Engine. Engine isn't changed.
+     * @param engine Engine with current position
+     * @return walk of the player followed by the push, in LURD notation;
+     * empty if level is already solved; null if no solution has been found
+     */
+    public String findHint(Engine engine) {
+        Problem problem;
+        try {
+            if(levelProblem == null) {
+                levelProblem = new Problem(engine);
+            }
+            problem = levelProblem.moveTo(engine);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if(engine.isWinConditionFulfilled()) {
+            return "";
+        }
+        Position position = new Position(problem);
+        State state = new State(problem.getBoxes(), position.getNormalizedPlayer());
+        Integer push = nextPushes.get(pack(problem, state));
+        if(push == null) {
+            searchesCount++;
+            Solution solution = solver.solve(problem);
+            if(solution == null) {
+                return null;
+            }
+            remember(problem, position, state, SolutionOptimizer.parse(problem, solution.getMoves(), false));
+            push = nextPushes.get(pack(problem, state));
+        }
+
+        position.set(problem.getBoxes(), problem.getPlayer());
+        int box = push / 4;
+        int direction = push % 4;
+        String path = position.findPath(problem.getPlayer(), box - problem.getOffset(direction));
+        return path + Character.toUpperCase(Position.LETTERS[direction]);
+    }
+
+    /**
+     * Returns the number of searches performed so far. Hints given from
+     * remembered solutions don't count.
+     * @return the number of searches
+     */
+    public int getSearchesCount() {
+        return searchesCount;
+    }
+
+    /**
+     * Packs State to be used as key of remembered pushes.
+     * @param problem Problem which is solved
+     * @param state State to be packed
+     * @return packed State
+     */
+    private static PackedState pack(Problem problem, State state) {
+        return problem.getFloorMap().pack(state.getBoxes(), state.getPlayer());
+    }
+
+    /**
+     * Remembers the next push of every State along solution. Solution may
+     * end at a State with remembered push, from which the known solution
+     * continues.
+     * @param problem Problem which is solved
+     * @param position Position used to examine states
+     * @param state the starting State
+     * @param pushes encoded pushes of solution
+     */
+    private void remember(Problem problem, Position position, State state, int[] pushes) {
+        for(int push : pushes) {
+            nextPushes.put(pack(problem, state), push);
+            int box = push / 4;
+            int target = box + problem.getOffset(push % 4);
+            position.set(state);
+            state = state.moveBox(Arrays.binarySearch(state.getBoxes(), box), target, position.normalizeAfterPush(box, target));
+        }
+    }
+}
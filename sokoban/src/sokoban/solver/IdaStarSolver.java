@@ -0,0 +1,289 @@
+package sokoban.solver;
+
+import sokoban.engine.Engine;
+import sokoban.engine.FreezeDeadlock;
+
+/**
+ * Solver using iterative deepening A* algorithm which finds solutions with
+ * the smallest number of moves of the player (the same number as reported
+ * by PlayingBoard.getPlayerMovesCount()). Every move of the player is one
+ * edge of search graph, so State normalization is not used.
+ *
+ * Positions already visited in the current iteration with not greater cost
+ * are skipped with help of TranspositionTable, which has fixed size, so
+ * search can run for a long time without growing the heap.
+ *
+ * Estimate of remaining moves is sum of Manhattan distances from boxes to
+ * the nearest spots plus distance the player has to walk to any box which
+ * is not on spot.
+ *
+ * @author Ketom
+ */
+public class IdaStarSolver extends Solver {
+    /**
+     * Default memory budget of transposition table in bytes.
+     */
+    public static final long DEFAULT_TABLE_SIZE = 64L << 20;
+
+    /**
+     * Value returned by search() when solution has been found.
+     */
+    private static final int FOUND = -1;
+
+    /**
+     * Memory budget of transposition table in bytes.
+     */
+    private long tableSize;
+
+    /**
+     * Problem being solved.
+     */
+    private Problem problem;
+
+    /**
+     * Flags of all cells with boxes of current position.
+     */
+    private byte[] cells;
+
+    /**
+     * Indexes of cells with boxes of current position.
+     */
+    private int[] boxes;
+
+    /**
+     * Position in array boxes of box on every cell.
+     */
+    private int[] boxAt;
+
+    /**
+     * Index of cell with the player.
+     */
+    private int player;
+
+    /**
+     * Sum of distances from boxes to the nearest spots.
+     */
+    private int boxesDistance;
+
+    /**
+     * Zobrist hash of current position.
+     */
+    private long hash;
+
+    /**
+     * Zobrist keys of cells.
+     */
+    private Zobrist zobrist;
+
+    /**
+     * Detector of freeze deadlocks working on cells.
+     */
+    private FreezeDeadlock freezeDeadlock;
+
+    /**
+     * Positions visited in current iteration.
+     */
+    private TranspositionTable table;
+
+    /**
+     * Moves of the player from the beginning to current position in LURD
+     * notation.
+     */
+    private char[] path;
+
+    /**
+     * The number of moves in found solution.
+     */
+    private int pathLength;
+
+    /**
+     * The number of expanded nodes.
+     */
+    private long nodesCount;
+
+    /**
+     * Constructs IdaStarSolver with transposition table of default size.
+     */
+    public IdaStarSolver() {
+        this(DEFAULT_TABLE_SIZE);
+    }
+
+    /**
+     * Constructs IdaStarSolver with transposition table of given size.
+     * @param tableSize memory budget of transposition table in bytes
+     */
+    public IdaStarSolver(long tableSize) {
+        this.tableSize = tableSize;
+    }
+
+    /**
+     * Searches for solution of given Problem with the smallest number of
+     * moves.
+     * @param problem Problem to be solved
+     * @return found Solution; null if Problem can't be solved
+     */
+    @Override
+    protected Solution search(Problem problem) {
+        long startTime = System.currentTimeMillis();
+        startSearch();
+
+        this.problem = problem;
+        cells = problem.getCells();
+        boxes = problem.getBoxes();
+        boxAt = new int[cells.length];
+        player = problem.getPlayer();
+        zobrist = new Zobrist(cells.length);
+        table = new TranspositionTable(tableSize);
+        freezeDeadlock = new FreezeDeadlock(cells.length, problem.getStride(), problem.getDeadSquares());
+        path = new char[16];
+        nodesCount = 0;
+
+        boxesDistance = 0;
+        for(int i = 0; i < boxes.length; i++) {
+            cells[boxes[i]] |= Engine.BOX;
+            boxAt[boxes[i]] = i;
+            boxesDistance += problem.getSpotDistance(boxes[i]);
+        }
+        hash = zobrist.hash(boxes, player);
+
+        Solution solution = null;
+        int threshold = estimate();
+        while(true) {
+            table.clear();
+            int result = search(0, threshold);
+            if(result == FOUND) {
+                solution = new Solution(new String(path, 0, pathLength));
+                break;
+            }
+            if(result == Integer.MAX_VALUE) {
+                break;
+            }
+            threshold = result;
+        }
+
+        statistics.setNodesCount(nodesCount);
+        statistics.setBound(threshold);
+        statistics.setClosedSetSize(table.size());
+        statistics.setElapsedTime(System.currentTimeMillis() - startTime);
+        return solution;
+    }
+
+    /**
+     * Performs depth first search from current position, limited by given
+     * threshold.
+     * @param cost the number of moves to current position
+     * @param threshold maximum estimated total number of moves
+     * @return FOUND if solution has been found; otherwise the smallest
+     * estimated total exceeding threshold
+     */
+    private int search(int cost, int threshold) {
+        int total = cost + estimate();
+        if(total > threshold) {
+            return total;
+        }
+        if(boxesDistance == 0) {
+            pathLength = cost;
+            return FOUND;
+        }
+        int stored = table.get(hash);
+        if(stored != TranspositionTable.NOT_FOUND && stored <= cost) {
+            return Integer.MAX_VALUE;
+        }
+        if(isLimitReached(nodesCount, 0, table.size(), threshold)) {
+            return Integer.MAX_VALUE;
+        }
+        table.put(hash, cost);
+        nodesCount++;
+
+        if(cost >= path.length) {
+            char[] newPath = new char[path.length * 2];
+            System.arraycopy(path, 0, newPath, 0, path.length);
+            path = newPath;
+        }
+
+        int min = Integer.MAX_VALUE;
+        for(int direction = 0; direction < 4; direction++) {
+            int offset = problem.getOffset(direction);
+            int target = player + offset;
+            if((cells[target] & Engine.WALL) != 0) {
+                continue;
+            }
+            int result;
+            if((cells[target] & Engine.BOX) != 0) {
+                int boxTarget = target + offset;
+                if((cells[boxTarget] & (Engine.WALL | Engine.BOX)) != 0) {
+                    continue;
+                }
+                if(problem.isDeadSquare(boxTarget)) {
+                    statistics.addPrune(DeadlockType.DEAD_SQUARE);
+                    continue;
+                }
+                path[cost] = Character.toUpperCase(Position.LETTERS[direction]);
+                moveBox(target, boxTarget);
+                if(freezeDeadlock.isDeadlock(cells, boxTarget)) {
+                    statistics.addPrune(DeadlockType.FREEZE);
+                    moveBox(boxTarget, target);
+                    continue;
+                }
+                movePlayer(target);
+                result = search(cost + 1, threshold);
+                if(result == FOUND) {
+                    return FOUND;
+                }
+                movePlayer(target - offset);
+                moveBox(boxTarget, target);
+            } else {
+                path[cost] = Position.LETTERS[direction];
+                movePlayer(target);
+                result = search(cost + 1, threshold);
+                if(result == FOUND) {
+                    return FOUND;
+                }
+                movePlayer(target - offset);
+            }
+            min = Math.min(min, result);
+        }
+        return min;
+    }
+
+    /**
+     * Returns estimated number of moves from current position to solution.
+     * @return estimated number of moves
+     */
+    private int estimate() {
+        if(boxesDistance == 0) {
+            return 0;
+        }
+        int walk = Integer.MAX_VALUE;
+        for(int box : boxes) {
+            if(problem.getSpotDistance(box) > 0) {
+                walk = Math.min(walk, problem.getManhattanDistance(player, box) - 1);
+            }
+        }
+        return boxesDistance + walk;
+    }
+
+    /**
+     * Moves the player to given cell, updating hash.
+     * @param target index of cell
+     */
+    private void movePlayer(int target) {
+        hash ^= zobrist.getPlayerKey(player) ^ zobrist.getPlayerKey(target);
+        player = target;
+    }
+
+    /**
+     * Moves box between given cells, updating hash and estimate.
+     * @param from index of cell with box
+     * @param to index of cell to which box is moved
+     */
+    private void moveBox(int from, int to) {
+        int i = boxAt[from];
+        boxes[i] = to;
+        boxAt[to] = i;
+        cells[from] &= ~Engine.BOX;
+        cells[to] |= Engine.BOX;
+        boxesDistance += problem.getSpotDistance(to) - problem.getSpotDistance(from);
+        hash ^= zobrist.getBoxKey(from) ^ zobrist.getBoxKey(to);
+    }
+}
@@ -0,0 +1,357 @@
+package sokoban.solver;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Macro moves of a Problem: sequences of pushes of one box which solvers
+ * can treat as a single edge of search graph.
+ *
+ * Tunnel macro: box pushed into a tunnel (a cell with walls on both sides
+ * perpendicular to the push) is pushed further until it leaves the tunnel.
+ *
+ * Goal room macro: when all spots lie in a room with a single entrance, box
+ * pushed into the entrance is pushed straight to the next free spot of the
+ * room. Spots are filled in fixed order, computed once by removing boxes
+ * from the full room one by one, so every spot can be reached with all
+ * previous spots filled.
+ *
+ * Macros are computed once per Problem. They reduce branching factor of
+ * search a lot, but solutions found with them aren't guaranteed to have
+ * the smallest number of pushes.
+ *
+ * @author Ketom
+ */
+public class Macros {
+    /**
+     * Problem to which macros belong.
+     */
+    private Problem problem;
+
+    /**
+     * Entrance of goal room; -1 if there is no goal room.
+     */
+    private int entrance = -1;
+
+    /**
+     * Direction of push through entrance into goal room.
+     */
+    private int entranceDirection;
+
+    /**
+     * Cells of goal room, without entrance.
+     */
+    private int[] room;
+
+    /**
+     * Spots of goal room in order in which they are filled.
+     */
+    private int[] slots;
+
+    /**
+     * Pushes moving box from entrance to every slot when all previous slots
+     * are filled, indexed by slot.
+     */
+    private int[][] paths;
+
+    /**
+     * Constructs Macros of given Problem, detecting goal room.
+     * @param problem Problem to be examined
+     */
+    public Macros(Problem problem) {
+        this.problem = problem;
+        findGoalRoom();
+        if(entrance != -1) {
+            findSlots();
+        }
+    }
+
+    /**
+     * Returns pushes of macro starting with given push. Position must
+     * contain state before the push.
+     * @param position Position with examined state
+     * @param box index of cell with pushed box
+     * @param direction ordinal of direction of push
+     * @return encoded pushes of macro, starting with given push; null if no
+     * macro starts with this push
+     */
+    public int[] find(Position position, int box, int direction) {
+        int offset = problem.getOffset(direction);
+        int target = box + offset;
+        int length = 1;
+        while(target != entrance && isTunnel(target, direction) && !problem.isSpot(target)) {
+            int next = target + offset;
+            if(position.isBlocked(next) || problem.isDeadSquare(next)) {
+                break;
+            }
+            target = next;
+            length++;
+        }
+
+        int[] path = null;
+        if(target == entrance && direction == entranceDirection) {
+            path = findRoomPath(position);
+        }
+        if(length == 1 && path == null) {
+            return null;
+        }
+
+        int[] pushes = new int[length + ((path != null) ? path.length : 0)];
+        for(int i = 0; i < length; i++) {
+            pushes[i] = Node.encodePush(box + i * offset, direction);
+        }
+        if(path != null) {
+            System.arraycopy(path, 0, pushes, length, path.length);
+        }
+        return pushes;
+    }
+
+    /**
+     * Checks if there is goal room with single entrance.
+     * @return true if there is goal room; false otherwise
+     */
+    public boolean hasGoalRoom() {
+        return slots != null;
+    }
+
+    /**
+     * Returns spots of goal room in order in which they are filled.
+     * @return indexes of cells with spots; empty if there is no goal room
+     */
+    public int[] getSlots() {
+        return (slots != null) ? slots.clone() : new int[0];
+    }
+
+    /**
+     * Checks if cell is a part of tunnel along direction, having walls on
+     * both sides.
+     * @param index index of cell
+     * @param direction ordinal of direction of tunnel
+     * @return true if cell is a part of tunnel; false otherwise
+     */
+    private boolean isTunnel(int index, int direction) {
+        int side = problem.getOffset((direction + 1) % 4);
+        return problem.isWall(index + side) && problem.isWall(index - side);
+    }
+
+    /**
+     * Returns pushes moving box from entrance to the next free slot, if all
+     * boxes in goal room are on previous slots.
+     * @param position Position with examined state
+     * @return encoded pushes; null if boxes in goal room are different
+     */
+    private int[] findRoomPath(Position position) {
+        if(slots == null) {
+            return null;
+        }
+        int count = 0;
+        for(int cell : room) {
+            if(position.isBox(cell)) {
+                count++;
+            }
+        }
+        if(count >= slots.length) {
+            return null;
+        }
+        for(int i = 0; i < count; i++) {
+            if(!position.isBox(slots[i])) {
+                return null;
+            }
+        }
+        return paths[count];
+    }
+
+    /**
+     * Finds the smallest area containing all spots, and neither boxes nor
+     * the player, which is connected with the rest of the level only through
+     * single cell with single outside neighbour.
+     */
+    private void findGoalRoom() {
+        int[] spots = problem.getSpots();
+        if(spots.length == 0) {
+            return;
+        }
+        boolean[] area = new boolean[problem.getCellsCount()];
+        int[] queue = new int[area.length];
+        int best = Integer.MAX_VALUE;
+
+        for(int cell = 0; cell < area.length; cell++) {
+            if(problem.isWall(cell) || problem.isSpot(cell)) {
+                continue;
+            }
+            Arrays.fill(area, false);
+            area[cell] = true;
+            int size = 0;
+            queue[size++] = spots[0];
+            area[spots[0]] = true;
+            for(int head = 0; head < size; head++) {
+                for(int direction = 0; direction < 4; direction++) {
+                    int neighbour = queue[head] + problem.getOffset(direction);
+                    if(!area[neighbour] && !problem.isWall(neighbour)) {
+                        area[neighbour] = true;
+                        queue[size++] = neighbour;
+                    }
+                }
+            }
+            if(size >= best || !isGoalRoom(area, spots)) {
+                continue;
+            }
+            int outside = -1;
+            int outsideCount = 0;
+            for(int direction = 0; direction < 4; direction++) {
+                int neighbour = cell - problem.getOffset(direction);
+                if(!problem.isWall(neighbour) && !area[neighbour]) {
+                    outside = direction;
+                    outsideCount++;
+                }
+            }
+            if(outsideCount != 1 || !area[cell + problem.getOffset(outside)]) {
+                continue;
+            }
+            best = size;
+            entrance = cell;
+            entranceDirection = outside;
+            room = Arrays.copyOf(queue, size);
+        }
+    }
+
+    /**
+     * Checks if area contains all spots, but no boxes and not the player.
+     * @param area cells of area
+     * @param spots indexes of cells with spots
+     * @return true if area can be goal room; false otherwise
+     */
+    private boolean isGoalRoom(boolean[] area, int[] spots) {
+        for(int spot : spots) {
+            if(!area[spot]) {
+                return false;
+            }
+        }
+        for(int box : problem.getBoxes()) {
+            if(area[box]) {
+                return false;
+            }
+        }
+        return !area[problem.getPlayer()];
+    }
+
+    /**
+     * Computes order of filling spots of goal room, removing boxes from the
+     * full room one by one. Goal room is forgotten if it can't be filled.
+     */
+    private void findSlots() {
+        int[] spots = problem.getSpots();
+        boolean[] filled = new boolean[problem.getCellsCount()];
+        for(int spot : spots) {
+            filled[spot] = true;
+        }
+        int[] order = new int[spots.length];
+        int[][] orderPaths = new int[spots.length][];
+        for(int i = spots.length - 1; i >= 0; i--) {
+            for(int spot : spots) {
+                if(!filled[spot]) {
+                    continue;
+                }
+                filled[spot] = false;
+                int[] path = findPath(spot, filled);
+                if(path != null) {
+                    order[i] = spot;
+                    orderPaths[i] = path;
+                    break;
+                }
+                filled[spot] = true;
+            }
+            if(orderPaths[i] == null) {
+                return;
+            }
+        }
+        slots = order;
+        paths = orderPaths;
+    }
+
+    /**
+     * Finds pushes moving box from entrance to given spot, when the player
+     * stands outside of entrance and given cells are filled with boxes. Box
+     * and the player stay in goal room, except the player starting outside.
+     * @param spot index of cell with spot
+     * @param filled cells filled with boxes
+     * @return encoded pushes; null if box can't be moved to spot
+     */
+    private int[] findPath(int spot, boolean[] filled) {
+        int cellsCount = problem.getCellsCount();
+        int start = entrance - problem.getOffset(entranceDirection);
+        boolean[] allowed = new boolean[cellsCount];
+        for(int cell : room) {
+            allowed[cell] = !filled[cell];
+        }
+        allowed[entrance] = true;
+        allowed[start] = true;
+
+        int[] local = new int[cellsCount];
+        Arrays.fill(local, -1);
+        int[] cells = Arrays.copyOf(room, room.length + 2);
+        cells[room.length] = entrance;
+        cells[room.length + 1] = start;
+        for(int i = 0; i < cells.length; i++) {
+            local[cells[i]] = i;
+        }
+
+        int m = cells.length;
+        int[] previous = new int[m * m];
+        int[] pushes = new int[m * m];
+        Arrays.fill(previous, -2);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        int first = local[entrance] * m + local[start];
+        previous[first] = -1;
+        queue.add(first);
+        boolean[] reachable = new boolean[cellsCount];
+        int[] stack = new int[m];
+
+        while(!queue.isEmpty()) {
+            int current = queue.poll();
+            int box = cells[current / m];
+            int player = cells[current % m];
+            if(box == spot) {
+                int count = 0;
+                for(int s = current; previous[s] != -1; s = previous[s]) {
+                    count++;
+                }
+                int[] path = new int[count];
+                for(int s = current; previous[s] != -1; s = previous[s]) {
+                    path[--count] = pushes[s];
+                }
+                return path;
+            }
+
+            Arrays.fill(reachable, false);
+            int size = 0;
+            stack[size++] = player;
+            reachable[player] = true;
+            while(size > 0) {
+                int cell = stack[--size];
+                for(int direction = 0; direction < 4; direction++) {
+                    int neighbour = cell + problem.getOffset(direction);
+                    if(allowed[neighbour] && neighbour != box && !reachable[neighbour]) {
+                        reachable[neighbour] = true;
+                        stack[size++] = neighbour;
+                    }
+                }
+            }
+
+            for(int direction = 0; direction < 4; direction++) {
+                int offset = problem.getOffset(direction);
+                int target = box + offset;
+                if(!reachable[box - offset] || target == start || !allowed[target] || problem.isDeadSquare(target)) {
+                    continue;
+                }
+                int next = local[target] * m + local[box];
+                if(previous[next] == -2) {
+                    previous[next] = current;
+                    pushes[next] = Node.encodePush(box, direction);
+                    queue.add(next);
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,223 @@
+package sokoban.solver;
+
+import java.util.Arrays;
+
+/**
+ * Lower bound of the number of pushes needed to solve a position: cost of
+ * assignment of boxes to spots with the smallest sum of push distances.
+ * Every box must be pushed to a different spot, so the bound is much
+ * tighter than sum of distances to the nearest spots.
+ *
+ * Assignment is found by Hungarian algorithm in O(n^3) time for a base
+ * position. Positions differing from the base by one moved box are then
+ * evaluated in O(n^2) time, by removing the moved box from the base
+ * assignment and finding one augmenting path for it. Solvers compute the
+ * base when expanding a node and evaluate children incrementally.
+ *
+ * Buffers are reused, so one instance shouldn't be used by many threads at
+ * once.
+ *
+ * @author Ketom
+ */
+public class MatchingHeuristic {
+    /**
+     * Estimate returned for positions in which boxes can't be assigned to
+     * spots at all.
+     */
+    public static final int DEADLOCK = Integer.MAX_VALUE;
+
+    /**
+     * Cost of assigning box to spot which it can't reach. It's big enough
+     * that sum of finite costs never reaches it.
+     */
+    private static final int INFINITE = 1 << 24;
+
+    /**
+     * Problem being solved.
+     */
+    private Problem problem;
+
+    /**
+     * The number of boxes and spots.
+     */
+    private int n;
+
+    /**
+     * Cells of boxes of base position, indexed from 1.
+     */
+    private int[] cells;
+
+    /**
+     * Potentials of boxes and spots of base assignment, indexed from 1.
+     */
+    private int[] rowPotentials;
+    private int[] columnPotentials;
+
+    /**
+     * Boxes assigned to spots in base assignment, indexed from 1.
+     */
+    private int[] assigned;
+
+    /**
+     * Copies of base assignment modified by incremental evaluation.
+     */
+    private int[] workCells;
+    private int[] workRowPotentials;
+    private int[] workColumnPotentials;
+    private int[] workAssigned;
+
+    /**
+     * Buffers of augmenting path search.
+     */
+    private int[] minimums;
+    private int[] way;
+    private boolean[] used;
+
+    /**
+     * Constructs MatchingHeuristic for given Problem.
+     * @param problem Problem being solved
+     */
+    public MatchingHeuristic(Problem problem) {
+        this.problem = problem;
+        n = problem.getBoxesCount();
+        cells = new int[n + 1];
+        rowPotentials = new int[n + 1];
+        columnPotentials = new int[n + 1];
+        assigned = new int[n + 1];
+        workCells = new int[n + 1];
+        workRowPotentials = new int[n + 1];
+        workColumnPotentials = new int[n + 1];
+        workAssigned = new int[n + 1];
+        minimums = new int[n + 1];
+        way = new int[n + 1];
+        used = new boolean[n + 1];
+    }
+
+    /**
+     * Computes assignment of given boxes from scratch and makes it the base
+     * for incremental evaluation.
+     * @param boxes indexes of cells with boxes
+     * @return the smallest sum of push distances; DEADLOCK if boxes can't be
+     * assigned to spots
+     */
+    public int estimate(int[] boxes) {
+        Arrays.fill(rowPotentials, 0);
+        Arrays.fill(columnPotentials, 0);
+        Arrays.fill(assigned, 0);
+        for(int i = 1; i <= n; i++) {
+            cells[i] = boxes[i - 1];
+            augment(i, cells, rowPotentials, columnPotentials, assigned);
+        }
+        return cost(cells, assigned);
+    }
+
+    /**
+     * Evaluates base position with one box moved to other cell. The base
+     * stays unchanged.
+     * @param box index of moved box in array given to estimate()
+     * @param target index of cell to which box is moved
+     * @return the smallest sum of push distances; DEADLOCK if boxes can't be
+     * assigned to spots
+     */
+    public int estimateAfterMove(int box, int target) {
+        System.arraycopy(cells, 0, workCells, 0, n + 1);
+        System.arraycopy(rowPotentials, 0, workRowPotentials, 0, n + 1);
+        System.arraycopy(columnPotentials, 0, workColumnPotentials, 0, n + 1);
+        System.arraycopy(assigned, 0, workAssigned, 0, n + 1);
+
+        int row = box + 1;
+        workCells[row] = target;
+        for(int j = 1; j <= n; j++) {
+            if(workAssigned[j] == row) {
+                workAssigned[j] = 0;
+            }
+        }
+        int potential = Integer.MAX_VALUE;
+        for(int j = 1; j <= n; j++) {
+            potential = Math.min(potential, cost(target, j) - workColumnPotentials[j]);
+        }
+        workRowPotentials[row] = potential;
+        augment(row, workCells, workRowPotentials, workColumnPotentials, workAssigned);
+        return cost(workCells, workAssigned);
+    }
+
+    /**
+     * Assigns given box to a spot by finding the shortest augmenting path,
+     * keeping the assignment optimal.
+     * @param row index of box, from 1
+     * @param cells cells of boxes, indexed from 1
+     * @param u potentials of boxes
+     * @param v potentials of spots
+     * @param p boxes assigned to spots; 0 for free spots
+     */
+    private void augment(int row, int[] cells, int[] u, int[] v, int[] p) {
+        p[0] = row;
+        int j0 = 0;
+        Arrays.fill(minimums, Integer.MAX_VALUE);
+        Arrays.fill(used, false);
+        do {
+            used[j0] = true;
+            int i0 = p[j0];
+            int delta = Integer.MAX_VALUE;
+            int j1 = 0;
+            for(int j = 1; j <= n; j++) {
+                if(used[j]) {
+                    continue;
+                }
+                int current = cost(cells[i0], j) - u[i0] - v[j];
+                if(current < minimums[j]) {
+                    minimums[j] = current;
+                    way[j] = j0;
+                }
+                if(minimums[j] < delta) {
+                    delta = minimums[j];
+                    j1 = j;
+                }
+            }
+            for(int j = 0; j <= n; j++) {
+                if(used[j]) {
+                    u[p[j]] += delta;
+                    v[j] -= delta;
+                } else {
+                    minimums[j] -= delta;
+                }
+            }
+            j0 = j1;
+        } while(p[j0] != 0);
+        do {
+            int j1 = way[j0];
+            p[j0] = p[j1];
+            j0 = j1;
+        } while(j0 != 0);
+    }
+
+    /**
+     * Returns cost of given assignment.
+     * @param cells cells of boxes, indexed from 1
+     * @param p boxes assigned to spots
+     * @return sum of push distances; DEADLOCK if some box is assigned to spot
+     * which it can't reach
+     */
+    private int cost(int[] cells, int[] p) {
+        int sum = 0;
+        for(int j = 1; j <= n; j++) {
+            int cost = cost(cells[p[j]], j);
+            if(cost == INFINITE) {
+                return DEADLOCK;
+            }
+            sum += cost;
+        }
+        return sum;
+    }
+
+    /**
+     * Returns cost of assigning box in given cell to given spot.
+     * @param cell index of cell with box
+     * @param spot index of spot, from 1
+     * @return push distance; INFINITE if box can't reach spot
+     */
+    private int cost(int cell, int spot) {
+        int distance = problem.getPushDistance(spot - 1, cell);
+        return (distance == Problem.UNREACHABLE) ? INFINITE : distance;
+    }
+}
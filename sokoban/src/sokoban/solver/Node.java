@@ -0,0 +1,142 @@
+package sokoban.solver;
+
+/**
+ * Node of a search tree. It holds State, reference to the parent Node and
+ * the push which leads from the parent to this Node.
+ *
+ * @author Ketom
+ */
+public class Node {
+    /**
+     * State represented by this Node.
+     */
+    private State state;
+
+    /**
+     * Parent of this Node. Null for the root.
+     */
+    private Node parent;
+
+    /**
+     * Push leading from the parent to this Node, encoded as index of cell
+     * with pushed box multiplied by 4 plus ordinal of Direction. Equals -1
+     * for the root.
+     */
+    private int push;
+
+    /**
+     * Pushes of macro move leading from the parent to this Node; null if
+     * Node was reached by single push.
+     */
+    private int[] macro;
+
+    /**
+     * The number of pushes from the root to this Node.
+     */
+    private int cost;
+
+    /**
+     * Estimated number of pushes from this Node to the solution.
+     */
+    private int estimate;
+
+    /**
+     * Constructs Node.
+     * @param state State represented by new Node
+     * @param parent parent of new Node; null for the root
+     * @param push encoded push leading from the parent; -1 for the root
+     * @param cost number of pushes from the root
+     * @param estimate estimated number of pushes to the solution
+     */
+    public Node(State state, Node parent, int push, int cost, int estimate) {
+        this.state = state;
+        this.parent = parent;
+        this.push = push;
+        this.cost = cost;
+        this.estimate = estimate;
+    }
+
+    /**
+     * Constructs Node reached from the parent by macro move.
+     * @param state State represented by new Node
+     * @param parent parent of new Node
+     * @param macro encoded pushes of macro move leading from the parent
+     * @param cost number of pushes from the root
+     * @param estimate estimated number of pushes to the solution
+     */
+    public Node(State state, Node parent, int[] macro, int cost, int estimate) {
+        this(state, parent, macro[macro.length - 1], cost, estimate);
+        this.macro = macro;
+    }
+
+    /**
+     * Encodes push of box from given cell in given direction.
+     * @param box index of cell with pushed box
+     * @param direction ordinal of Direction of push
+     * @return encoded push
+     */
+    public static int encodePush(int box, int direction) {
+        return box * 4 + direction;
+    }
+
+    /**
+     * Returns State represented by this Node.
+     * @return State of this Node
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Returns parent of this Node.
+     * @return parent of this Node; null for the root
+     */
+    public Node getParent() {
+        return parent;
+    }
+
+    /**
+     * Returns encoded push leading from the parent to this Node, the last
+     * one for macro moves.
+     * @return encoded push; -1 for the root
+     */
+    public int getPush() {
+        return push;
+    }
+
+    /**
+     * Returns all pushes leading from the parent to this Node.
+     * @return encoded pushes; empty for the root
+     */
+    public int[] getPushes() {
+        if(macro != null) {
+            return macro;
+        }
+        return (push == -1) ? new int[0] : new int[]{push};
+    }
+
+    /**
+     * Returns the number of pushes from the root to this Node.
+     * @return the number of pushes
+     */
+    public int getCost() {
+        return cost;
+    }
+
+    /**
+     * Returns estimated number of pushes from this Node to the solution.
+     * @return estimated number of pushes
+     */
+    public int getEstimate() {
+        return estimate;
+    }
+
+    /**
+     * Returns estimated total number of pushes of solution going through
+     * this Node.
+     * @return sum of cost and estimate
+     */
+    public int getTotal() {
+        return cost + estimate;
+    }
+}
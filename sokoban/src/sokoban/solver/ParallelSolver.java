@@ -0,0 +1,450 @@
+package sokoban.solver;
+
+import sokoban.engine.PackedState;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Solver using A* algorithm on many threads, which finds solutions with the
+ * smallest number of pushes. Nodes are grouped in layers with the same
+ * estimated total number of pushes, and layers are expanded in order of
+ * their totals by ForkJoinPool with work stealing. All threads share one
+ * concurrent set of visited states.
+ *
+ * Threads wait for each other only when the whole layer is done. Children
+ * with the same total as their layer are expanded at once by new tasks, so
+ * the search goes deep within a layer without any barrier, and children
+ * with bigger totals are added to open set by the tasks which generated
+ * them, in chunks, without merging on a single thread. Tasks are split
+ * down to a few nodes, so even small layers are spread over all threads.
+ *
+ * Estimate of remaining pushes is the same as in AStarSolver.
+ *
+ * @author Ketom
+ */
+public class ParallelSolver extends Solver {
+    /**
+     * Maximum number of nodes expanded by one task without splitting it.
+     */
+    private static final int TASK_SIZE = 4;
+
+    /**
+     * The number of threads used by search.
+     */
+    private int threads;
+
+    /**
+     * Constructs ParallelSolver using all available processors.
+     */
+    public ParallelSolver() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs ParallelSolver using given number of threads.
+     * @param threads the number of threads
+     */
+    public ParallelSolver(int threads) {
+        if(threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive, but is " + threads);
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Searches for solution of given Problem with the smallest number of
+     * pushes.
+     * @param problem Problem to be solved
+     * @return found Solution; null if Problem can't be solved
+     */
+    @Override
+    protected Solution search(Problem problem) {
+        long startTime = System.currentTimeMillis();
+        startSearch();
+        int boxesCount = problem.getBoxes().length;
+        setEntrySizes(getNodeSize(boxesCount) + 8, 96 + 2L * boxesCount);
+
+        Search search = new Search(problem);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            search.run(pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        Node goal = search.goal.get();
+        search.updatePrunes();
+        statistics.setNodesCount(search.nodesCount.sum());
+        statistics.setBound(search.bound);
+        statistics.setOpenSetSize(search.openSize.sum());
+        statistics.setClosedSetSize(search.closed.size());
+        statistics.setElapsedTime(System.currentTimeMillis() - startTime);
+        return (goal != null) ? Solution.fromNode(problem, goal) : null;
+    }
+
+    /**
+     * Solves given Problem with every given number of threads and measures
+     * how much faster than the first run every other run was.
+     * @param problem Problem to be solved
+     * @param threadCounts numbers of threads to be tried
+     * @return report of speedup
+     */
+    public static SpeedupReport measureSpeedup(Problem problem, int... threadCounts) {
+        long[] times = new long[threadCounts.length];
+        for(int i = 0; i < threadCounts.length; i++) {
+            ParallelSolver solver = new ParallelSolver(threadCounts[i]);
+            solver.solve(problem);
+            times[i] = solver.getStatistics().getElapsedTime();
+        }
+        return new SpeedupReport(threadCounts, times);
+    }
+
+    /**
+     * State of one search, shared by all threads.
+     */
+    private class Search {
+        /**
+         * Problem being solved.
+         */
+        private Problem problem;
+
+        /**
+         * Nodes waiting for expansion grouped by estimated total, in chunks
+         * added by tasks which generated them.
+         */
+        private ConcurrentSkipListMap<Integer, ConcurrentLinkedQueue<List<Node>>> open = new ConcurrentSkipListMap<>();
+
+        /**
+         * The number of nodes waiting for expansion.
+         */
+        private LongAdder openSize = new LongAdder();
+
+        /**
+         * Visited states, packed to save memory, with the smallest number of
+         * pushes they were reached with.
+         */
+        private ConcurrentHashMap<PackedState, Integer> closed = new ConcurrentHashMap<>();
+
+        /**
+         * Estimated total of layer being expanded.
+         */
+        private volatile int bound;
+
+        /**
+         * Found Node in which all boxes are on spots.
+         */
+        private AtomicReference<Node> goal = new AtomicReference<>();
+
+        /**
+         * The number of expanded nodes.
+         */
+        private LongAdder nodesCount = new LongAdder();
+
+        /**
+         * The number of pruned pushes, indexed by DeadlockType ordinal.
+         */
+        private LongAdder[] prunes = new LongAdder[DeadlockType.values().length];
+
+        /**
+         * Positions used by threads to examine states.
+         */
+        private ThreadLocal<Position> positions;
+
+        /**
+         * Heuristics used by threads to estimate states.
+         */
+        private ThreadLocal<MatchingHeuristic> heuristics;
+
+        /**
+         * Constructs Search of given Problem.
+         * @param problem Problem to be solved
+         */
+        private Search(Problem problem) {
+            this.problem = problem;
+            for(int i = 0; i < prunes.length; i++) {
+                prunes[i] = new LongAdder();
+            }
+            positions = ThreadLocal.withInitial(() -> new Position(problem));
+            heuristics = ThreadLocal.withInitial(() -> new MatchingHeuristic(problem));
+        }
+
+        /**
+         * Expands layers of nodes until solution is found or there are no
+         * more nodes. When a layer is stopped by limits of search, they are
+         * checked again at the end, so Statistics are marked as aborted.
+         * @param pool pool on which nodes are expanded
+         */
+        private void run(ForkJoinPool pool) {
+            int[] boxes = problem.getBoxes();
+            int estimate = heuristics.get().estimate(boxes);
+            if(estimate == MatchingHeuristic.DEADLOCK) {
+                return;
+            }
+            State state = new State(boxes, positions.get().getNormalizedPlayer());
+            Node root = new Node(state, null, -1, 0, estimate);
+            bound = estimate;
+            if(estimate == 0) {
+                goal.set(root);
+                return;
+            }
+            closed.put(pack(state), 0);
+            List<Node> rootLayer = new ArrayList<>();
+            rootLayer.add(root);
+            add(estimate, rootLayer);
+
+            while(goal.get() == null && !open.isEmpty()) {
+                updatePrunes();
+                if(isLimitReached(nodesCount.sum(), openSize.sum(), closed.size(), open.firstKey())) {
+                    break;
+                }
+                Map.Entry<Integer, ConcurrentLinkedQueue<List<Node>>> layer = open.pollFirstEntry();
+                bound = layer.getKey();
+                for(List<Node> chunk : layer.getValue()) {
+                    openSize.add(-chunk.size());
+                }
+                pool.invoke(new LayerTask(layer.getValue()));
+            }
+            if(goal.get() == null) {
+                isLimitReached(nodesCount.sum(), openSize.sum(), closed.size(), bound);
+            }
+        }
+
+        /**
+         * Adds chunk of nodes with the same estimated total to the open set.
+         * Called concurrently by many threads.
+         * @param total estimated total of nodes
+         * @param chunk nodes waiting for expansion
+         */
+        private void add(int total, List<Node> chunk) {
+            open.computeIfAbsent(total, key -> new ConcurrentLinkedQueue<>()).add(chunk);
+            openSize.add(chunk.size());
+        }
+
+        /**
+         * Copies the numbers of pruned pushes counted by all threads to
+         * Statistics.
+         */
+        private void updatePrunes() {
+            for(DeadlockType type : DeadlockType.values()) {
+                statistics.setPrunes(type, prunes[type.ordinal()].sum());
+            }
+        }
+
+        /**
+         * Checks if expansion of current layer should be stopped, because
+         * solution has been found or search should be stopped.
+         * @return true if expansion should be stopped; false otherwise
+         */
+        private boolean isStopped() {
+            return goal.get() != null || isStopRequested(nodesCount.sum()) || isMemoryExceeded(openSize.sum(), closed.size());
+        }
+
+        /**
+         * Generates children of given Node. Called concurrently by many
+         * threads.
+         * @param node Node to be expanded
+         * @param now list to which children of current layer are added
+         * @param later lists to which children of next layers are added, by
+         * their estimated totals
+         */
+        private void expand(Node node, List<Node> now, Map<Integer, List<Node>> later) {
+            State state = node.getState();
+            Integer best = closed.get(pack(state));
+            if(best != null && best < node.getCost()) {
+                return;
+            }
+            nodesCount.increment();
+
+            Position position = positions.get();
+            MatchingHeuristic heuristic = heuristics.get();
+            int[] boxes = state.getBoxes();
+            position.set(state);
+            heuristic.estimate(boxes);
+
+            for(int i = 0; i < boxes.length; i++) {
+                int box = boxes[i];
+                for(int direction = 0; direction < 4; direction++) {
+                    int offset = problem.getOffset(direction);
+                    int target = box + offset;
+                    if(position.isBlocked(target) || !position.isReachable(box - offset)) {
+                        continue;
+                    }
+                    if(problem.isDeadSquare(target)) {
+                        prunes[DeadlockType.DEAD_SQUARE.ordinal()].increment();
+                        continue;
+                    }
+                    if(position.isFreezeDeadlock(box, target)) {
+                        prunes[DeadlockType.FREEZE.ordinal()].increment();
+                        continue;
+                    }
+
+                    int player = position.normalizeAfterPush(box, target);
+                    State child = state.moveBox(i, target, player);
+                    int cost = node.getCost() + 1;
+                    int estimate = heuristic.estimateAfterMove(i, target);
+                    if(estimate == MatchingHeuristic.DEADLOCK) {
+                        prunes[DeadlockType.MATCHING.ordinal()].increment();
+                        continue;
+                    }
+                    if(!visit(child, cost)) {
+                        continue;
+                    }
+                    Node childNode = new Node(child, node, Node.encodePush(box, direction), cost, estimate);
+                    if(estimate == 0) {
+                        goal.compareAndSet(null, childNode);
+                        return;
+                    }
+                    if(childNode.getTotal() <= bound) {
+                        now.add(childNode);
+                    } else {
+                        later.computeIfAbsent(childNode.getTotal(), key -> new ArrayList<>()).add(childNode);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Packs State to be stored in closed set.
+         * @param state State to be packed
+         * @return packed State
+         */
+        private PackedState pack(State state) {
+            return problem.getFloorMap().pack(state.getBoxes(), state.getPlayer());
+        }
+
+        /**
+         * Marks State as visited with given cost, unless it has been
+         * already reached with not greater cost.
+         * @param state visited State
+         * @param cost the number of pushes to State
+         * @return true if State has been reached with smaller cost than
+         * before; false otherwise
+         */
+        private boolean visit(State state, int cost) {
+            PackedState packed = pack(state);
+            while(true) {
+                Integer best = closed.putIfAbsent(packed, cost);
+                if(best == null) {
+                    return true;
+                }
+                if(best <= cost) {
+                    return false;
+                }
+                if(closed.replace(packed, best, cost)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Task expanding whole layer: it forks one task for every chunk of
+         * layer and completes when all nodes reached from them within the
+         * layer are expanded.
+         */
+        private class LayerTask extends CountedCompleter<Void> {
+            private static final long serialVersionUID = 1L;
+
+            /**
+             * Chunks of nodes of layer.
+             */
+            private transient Iterable<List<Node>> chunks;
+
+            /**
+             * Constructs task expanding given layer.
+             * @param chunks chunks of nodes of layer
+             */
+            private LayerTask(Iterable<List<Node>> chunks) {
+                this.chunks = chunks;
+            }
+
+            /**
+             * Forks tasks expanding chunks.
+             */
+            @Override
+            public void compute() {
+                for(List<Node> chunk : chunks) {
+                    addToPendingCount(1);
+                    new ExpandTask(this, chunk, 0, chunk.size()).fork();
+                }
+                chunks = null;
+                tryComplete();
+            }
+        }
+
+        /**
+         * Task expanding part of a chunk, splitting it when it's too big.
+         * Children within current layer are expanded by a new task forked
+         * from this one, and children of next layers are added to open set.
+         */
+        private class ExpandTask extends CountedCompleter<Void> {
+            private static final long serialVersionUID = 1L;
+
+            /**
+             * Nodes of chunk.
+             */
+            private transient List<Node> nodes;
+
+            /**
+             * Index of first Node expanded by this task.
+             */
+            private int from;
+
+            /**
+             * Index after last Node expanded by this task.
+             */
+            private int to;
+
+            /**
+             * Constructs task expanding given part of chunk.
+             * @param parent task which completes when this one completes
+             * @param nodes nodes of chunk
+             * @param from index of first Node to be expanded
+             * @param to index after last Node to be expanded
+             */
+            private ExpandTask(CountedCompleter<?> parent, List<Node> nodes, int from, int to) {
+                super(parent);
+                this.nodes = nodes;
+                this.from = from;
+                this.to = to;
+            }
+
+            /**
+             * Splits task until it's small enough, then expands its nodes.
+             */
+            @Override
+            public void compute() {
+                while(to - from > TASK_SIZE) {
+                    int middle = (from + to) >>> 1;
+                    addToPendingCount(1);
+                    new ExpandTask(this, nodes, middle, to).fork();
+                    to = middle;
+                }
+
+                List<Node> now = new ArrayList<>();
+                Map<Integer, List<Node>> later = new HashMap<>();
+                for(int i = from; i < to && !isStopped(); i++) {
+                    expand(nodes.get(i), now, later);
+                }
+                nodes = null;
+                for(Map.Entry<Integer, List<Node>> entry : later.entrySet()) {
+                    add(entry.getKey(), entry.getValue());
+                }
+                if(!now.isEmpty() && !isStopped()) {
+                    addToPendingCount(1);
+                    new ExpandTask(this, now, 0, now.size()).fork();
+                }
+                tryComplete();
+            }
+        }
+    }
+}
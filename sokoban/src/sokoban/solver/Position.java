@@ -0,0 +1,286 @@
+package sokoban.solver;
+
+import sokoban.engine.Engine;
+import sokoban.engine.FreezeDeadlock;
+import sokoban.engine.Reachability;
+
+import java.util.Arrays;
+
+/**
+ * Mutable working board used by solvers to examine a State. It contains
+ * flags of all cells with boxes placed on them, and cells reachable by the
+ * player. Buffers are allocated once and reused for every examined State.
+ *
+ * @author Ketom
+ */
+public class Position {
+    /**
+     * Letters used in LURD notation for moves, indexed by Direction ordinal.
+     * Pushes are written with upper case letters.
+     */
+    public static final char[] LETTERS = {'u', 'r', 'd', 'l'};
+
+    /**
+     * Problem to which examined states belong.
+     */
+    private Problem problem;
+
+    /**
+     * Flags of all cells with boxes of current state.
+     */
+    private byte[] cells;
+
+    /**
+     * Differences between indexes of neighbouring cells, indexed by
+     * Direction ordinal.
+     */
+    private int[] offsets;
+
+    /**
+     * Boxes currently placed on cells.
+     */
+    private int[] boxes;
+
+    /**
+     * Position of the player from which reachable cells were computed.
+     */
+    private int player;
+
+    /**
+     * Smallest index of cell reachable by the player.
+     */
+    private int normalizedPlayer;
+
+    /**
+     * Cells reachable by the player.
+     */
+    private Reachability reachable;
+
+    /**
+     * Cells reachable by the player after examined push.
+     */
+    private Reachability reachableAfterPush;
+
+    /**
+     * Marks used by path search, valid if value equals scratchStamp.
+     */
+    private int[] scratch;
+    private int scratchStamp;
+
+    /**
+     * Buffer used as queue by path search.
+     */
+    private int[] queue;
+
+    /**
+     * Directions in which the player should go from cells to follow path
+     * found by findPath().
+     */
+    private int[] directions;
+
+    /**
+     * Detector of freeze deadlocks working on cells of this Position.
+     */
+    private FreezeDeadlock freezeDeadlock;
+
+    /**
+     * Constructs Position for given Problem. Initially it contains boxes and
+     * player at their starting positions.
+     * @param problem Problem to which examined states will belong
+     */
+    public Position(Problem problem) {
+        this.problem = problem;
+        cells = problem.getCells();
+        offsets = new int[4];
+        for(int i = 0; i < offsets.length; i++) {
+            offsets[i] = problem.getOffset(i);
+        }
+        reachable = new Reachability(cells.length, problem.getStride());
+        reachableAfterPush = new Reachability(cells.length, problem.getStride());
+        scratch = new int[cells.length];
+        queue = new int[cells.length];
+        directions = new int[cells.length];
+        freezeDeadlock = new FreezeDeadlock(cells.length, problem.getStride(), problem.getDeadSquares());
+        boxes = new int[0];
+        set(problem.getBoxes(), problem.getPlayer());
+    }
+
+    /**
+     * Places boxes and player on given cells and computes cells reachable by
+     * the player.
+     * @param boxes indexes of cells with boxes
+     * @param player index of cell with the player
+     */
+    public void set(int[] boxes, int player) {
+        for(int box : this.boxes) {
+            cells[box] &= ~Engine.BOX;
+        }
+        for(int box : boxes) {
+            cells[box] |= Engine.BOX;
+        }
+        this.boxes = boxes;
+        this.player = player;
+        normalizedPlayer = reachable.compute(cells, player);
+    }
+
+    /**
+     * Places boxes and player of given State on cells and computes cells
+     * reachable by the player.
+     * @param state State to be examined
+     */
+    public void set(State state) {
+        set(state.getBoxes(), state.getPlayer());
+    }
+
+    /**
+     * Returns normalized position of the player after pushing a box from one
+     * cell to another. Position itself is not changed.
+     * @param from index of cell with box to be pushed
+     * @param to index of cell to which box will be pushed
+     * @return normalized position of the player after push
+     */
+    public int normalizeAfterPush(int from, int to) {
+        return normalizeAfterMove(from, to, from);
+    }
+
+    /**
+     * Returns normalized position of the player after moving a box from one
+     * cell to another, with the player left in given cell. Position itself
+     * is not changed.
+     * @param from index of cell with box to be moved
+     * @param to index of cell to which box will be moved
+     * @param player index of cell with the player after move
+     * @return normalized position of the player after move
+     */
+    public int normalizeAfterMove(int from, int to, int player) {
+        cells[from] &= ~Engine.BOX;
+        cells[to] |= Engine.BOX;
+        int result = reachableAfterPush.compute(cells, player);
+        cells[to] &= ~Engine.BOX;
+        cells[from] |= Engine.BOX;
+        return result;
+    }
+
+    /**
+     * Checks if pushing a box from one cell to another would freeze it, or
+     * its neighbours, outside of spots. Position itself is not changed.
+     * @param from index of cell with box to be pushed
+     * @param to index of cell to which box will be pushed
+     * @return true if push leads to freeze deadlock; false otherwise
+     */
+    public boolean isFreezeDeadlock(int from, int to) {
+        cells[from] &= ~Engine.BOX;
+        cells[to] |= Engine.BOX;
+        boolean result = freezeDeadlock.isDeadlock(cells, to);
+        cells[to] &= ~Engine.BOX;
+        cells[from] |= Engine.BOX;
+        return result;
+    }
+
+    /**
+     * Finds the shortest path of the player between two cells, not moving
+     * any boxes.
+     * @param from index of cell with the player
+     * @param to index of cell to which the player should go
+     * @return path in LURD notation; null if there is no path
+     */
+    public String findPath(int from, int to) {
+        if(from == to) {
+            return "";
+        }
+        if(isBlocked(to)) {
+            return null;
+        }
+        scratchStamp = nextStamp(scratch, scratchStamp);
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = to;
+        scratch[to] = scratchStamp;
+        while(head < tail) {
+            int index = queue[head++];
+            for(int direction = 0; direction < offsets.length; direction++) {
+                int neighbour = index - offsets[direction];
+                if(scratch[neighbour] == scratchStamp || isBlocked(neighbour)) {
+                    continue;
+                }
+                scratch[neighbour] = scratchStamp;
+                directions[neighbour] = direction;
+                if(neighbour == from) {
+                    StringBuilder path = new StringBuilder();
+                    for(int i = from; i != to; i += offsets[directions[i]]) {
+                        path.append(LETTERS[directions[i]]);
+                    }
+                    return path.toString();
+                }
+                queue[tail++] = neighbour;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns next stamp for given array of marks, clearing it when stamps
+     * run out.
+     * @param marks array of marks
+     * @param stamp current stamp
+     * @return next stamp
+     */
+    private static int nextStamp(int[] marks, int stamp) {
+        if(stamp == Integer.MAX_VALUE) {
+            Arrays.fill(marks, 0);
+            return 1;
+        }
+        return stamp + 1;
+    }
+
+    /**
+     * Checks if cell with given index is occupied by wall or box.
+     * @param index index of cell
+     * @return true if cell is occupied; false otherwise
+     */
+    public boolean isBlocked(int index) {
+        return (cells[index] & (Engine.WALL | Engine.BOX)) != 0;
+    }
+
+    /**
+     * Checks if there is a box in cell with given index.
+     * @param index index of cell
+     * @return true if there is a box; false otherwise
+     */
+    public boolean isBox(int index) {
+        return (cells[index] & Engine.BOX) != 0;
+    }
+
+    /**
+     * Checks if cell with given index can be reached by the player.
+     * @param index index of cell
+     * @return true if cell can be reached; false otherwise
+     */
+    public boolean isReachable(int index) {
+        return reachable.isReachable(index);
+    }
+
+    /**
+     * Returns smallest index of cell reachable by the player.
+     * @return normalized position of the player
+     */
+    public int getNormalizedPlayer() {
+        return normalizedPlayer;
+    }
+
+    /**
+     * Returns position of the player.
+     * @return index of cell with the player
+     */
+    public int getPlayer() {
+        return player;
+    }
+
+    /**
+     * Returns Problem to which examined states belong.
+     * @return Problem of this Position
+     */
+    public Problem getProblem() {
+        return problem;
+    }
+}
@@ -0,0 +1,391 @@
+package sokoban.solver;
+
+import sokoban.domain.Direction;
+import sokoban.domain.Level;
+import sokoban.engine.DeadSquares;
+import sokoban.engine.Engine;
+import sokoban.engine.FloorMap;
+
+import java.util.Arrays;
+
+/**
+ * Static part of a Level prepared for searching: walls and spots in flat
+ * grid of the same layout as in Engine, together with starting positions of
+ * boxes and the player. Cells which the player can never reach are treated
+ * as walls.
+ *
+ * @author Ketom
+ */
+public class Problem {
+    /**
+     * Push distance of cells from which box can't be pushed to Spot.
+     */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    /**
+     * The number of cells in one row of grid.
+     */
+    private int stride;
+
+    /**
+     * Flags of all cells of the grid. Contains only Engine.WALL and
+     * Engine.SPOT flags.
+     */
+    private byte[] cells;
+
+    /**
+     * Differences between indexes of neighbouring cells, indexed by
+     * Direction ordinal.
+     */
+    private int[] offsets;
+
+    /**
+     * Sorted indexes of cells with Spots.
+     */
+    private int[] spots;
+
+    /**
+     * Sorted indexes of cells with Boxes at the beginning.
+     */
+    private int[] boxes;
+
+    /**
+     * Index of cell with Player at the beginning.
+     */
+    private int player;
+
+    /**
+     * Manhattan distance from every cell to the nearest Spot.
+     */
+    private int[] spotDistances;
+
+    /**
+     * Cells from which boxes can never reach any Spot.
+     */
+    private DeadSquares deadSquares;
+
+    /**
+     * Numbering of floor cells, used to pack states.
+     */
+    private FloorMap floorMap;
+
+    /**
+     * The smallest number of pushes needed to move box from every cell to
+     * every Spot when there are no other boxes, indexed by Spot and cell.
+     */
+    private int[][] pushDistances;
+
+    /**
+     * Constructs Problem based on given Level.
+     * @param level Level which should be solved
+     * @throws IllegalArgumentException when Level has no Player or the number
+     * of Boxes is different than the number of Spots
+     */
+    public Problem(Level level) {
+        this(new Engine(level));
+    }
+
+    /**
+     * Constructs Problem based on current state of given Engine.
+     * @param engine Engine which state should be solved
+     * @throws IllegalArgumentException when there is no Player or the number
+     * of Boxes is different than the number of Spots
+     */
+    public Problem(Engine engine) {
+        if(engine.getPlayerIndex() == -1) {
+            throw new IllegalArgumentException("Level has no Player");
+        }
+        if(engine.getBoxesCount() != engine.getSpotsCount()) {
+            throw new IllegalArgumentException("Level has " + engine.getBoxesCount() + " Boxes and " + engine.getSpotsCount() + " Spots");
+        }
+
+        stride = engine.getStride();
+        cells = new byte[engine.getCellsCount()];
+        offsets = new int[Direction.values().length];
+        for(Direction direction : Direction.values()) {
+            offsets[direction.ordinal()] = engine.getOffset(direction);
+        }
+        player = engine.getPlayerIndex();
+        spots = new int[engine.getSpotsCount()];
+        boxes = new int[engine.getBoxesCount()];
+
+        boolean[] inside = findInside(engine);
+        int spotsCount = 0;
+        int boxesCount = 0;
+        for(int i = 0; i < cells.length; i++) {
+            cells[i] = (byte) (engine.get(i) & (Engine.WALL | Engine.SPOT));
+            if(!inside[i] && !engine.isBox(i) && !engine.isSpot(i)) {
+                cells[i] = Engine.WALL;
+            }
+            if(engine.isSpot(i)) {
+                spots[spotsCount++] = i;
+            }
+            if(engine.isBox(i)) {
+                boxes[boxesCount++] = i;
+            }
+        }
+
+        deadSquares = engine.getDeadSquares();
+        floorMap = engine.getFloorMap();
+
+        spotDistances = new int[cells.length];
+        for(int i = 0; i < cells.length; i++) {
+            int distance = Integer.MAX_VALUE;
+            for(int spot : spots) {
+                distance = Math.min(distance, getManhattanDistance(i, spot));
+            }
+            spotDistances[i] = distance;
+        }
+
+        pushDistances = new int[spots.length][];
+        for(int i = 0; i < spots.length; i++) {
+            pushDistances[i] = findPushDistances(spots[i]);
+        }
+    }
+
+    /**
+     * Constructs Problem sharing static data of given Problem, with other
+     * positions of boxes and the player.
+     * @param problem Problem of the same Level
+     * @param boxes sorted indexes of cells with Boxes
+     * @param player index of cell with Player
+     */
+    private Problem(Problem problem, int[] boxes, int player) {
+        stride = problem.stride;
+        cells = problem.cells;
+        offsets = problem.offsets;
+        spots = problem.spots;
+        spotDistances = problem.spotDistances;
+        deadSquares = problem.deadSquares;
+        floorMap = problem.floorMap;
+        pushDistances = problem.pushDistances;
+        this.boxes = boxes;
+        this.player = player;
+    }
+
+    /**
+     * Returns Problem of the same Level with Boxes and Player placed as in
+     * given Engine. Static data, such as push distances and dead squares,
+     * is shared instead of being computed again, so it's much cheaper than
+     * constructing new Problem from Engine.
+     * @param engine Engine with the same Level in another position
+     * @return Problem of current position of Engine
+     * @throws IllegalArgumentException when Engine has other board, no Player
+     * or other number of Boxes
+     */
+    public Problem moveTo(Engine engine) {
+        if(engine.getCellsCount() != cells.length || engine.getPlayerIndex() == -1) {
+            throw new IllegalArgumentException("Engine has other Level");
+        }
+        int[] movedBoxes = new int[boxes.length];
+        int boxesCount = 0;
+        for(int i = 0; i < cells.length; i++) {
+            if(engine.isBox(i)) {
+                if(boxesCount == movedBoxes.length) {
+                    throw new IllegalArgumentException("Engine has other Level");
+                }
+                movedBoxes[boxesCount++] = i;
+            }
+        }
+        if(boxesCount != movedBoxes.length) {
+            throw new IllegalArgumentException("Engine has other Level");
+        }
+        return new Problem(this, movedBoxes, engine.getPlayerIndex());
+    }
+
+    /**
+     * Computes the smallest numbers of pushes needed to move box from every
+     * cell to given Spot, by pulling box from the Spot. Position of the
+     * player is ignored, except that there must be free cell behind box.
+     * @param spot index of cell with Spot
+     * @return the number of pushes for every cell; UNREACHABLE if box can't
+     * be pushed to Spot
+     */
+    private int[] findPushDistances(int spot) {
+        int[] distances = new int[cells.length];
+        Arrays.fill(distances, UNREACHABLE);
+        int[] queue = new int[cells.length];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = spot;
+        distances[spot] = 0;
+        while(head < tail) {
+            int box = queue[head++];
+            for(int offset : offsets) {
+                int from = box - offset;
+                if(distances[from] != UNREACHABLE || isWall(from) || isWall(from - offset)) {
+                    continue;
+                }
+                distances[from] = distances[box] + 1;
+                queue[tail++] = from;
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * Finds cells which can be reached by the player if all boxes were
+     * removed.
+     * @param engine Engine with the board
+     * @return array marking cells which can be reached
+     */
+    private boolean[] findInside(Engine engine) {
+        boolean[] inside = new boolean[engine.getCellsCount()];
+        int[] stack = new int[inside.length];
+        int size = 0;
+        stack[size++] = player;
+        inside[player] = true;
+        while(size > 0) {
+            int index = stack[--size];
+            for(int offset : offsets) {
+                int neighbour = index + offset;
+                if(!inside[neighbour] && !engine.isWall(neighbour)) {
+                    inside[neighbour] = true;
+                    stack[size++] = neighbour;
+                }
+            }
+        }
+        return inside;
+    }
+
+    /**
+     * Returns Manhattan distance between two cells.
+     * @param a index of first cell
+     * @param b index of second cell
+     * @return Manhattan distance between cells
+     */
+    public int getManhattanDistance(int a, int b) {
+        return Math.abs(a % stride - b % stride) + Math.abs(a / stride - b / stride);
+    }
+
+    /**
+     * Returns Manhattan distance from given cell to the nearest Spot.
+     * @param index index of cell
+     * @return distance to the nearest Spot
+     */
+    public int getSpotDistance(int index) {
+        return spotDistances[index];
+    }
+
+    /**
+     * Returns the smallest number of pushes needed to move box from given
+     * cell to given Spot when there are no other boxes.
+     * @param spot index of Spot in array returned by getSpots()
+     * @param index index of cell
+     * @return the number of pushes; UNREACHABLE if box can't be pushed to
+     * Spot
+     */
+    public int getPushDistance(int spot, int index) {
+        return pushDistances[spot][index];
+    }
+
+    /**
+     * Checks if box in cell with given index can never reach any Spot.
+     * @param index index of cell
+     * @return true if cell is dead; false otherwise
+     */
+    public boolean isDeadSquare(int index) {
+        return deadSquares.isDead(index);
+    }
+
+    /**
+     * Returns cells from which boxes can never reach any Spot.
+     * @return DeadSquares of Problem
+     */
+    public DeadSquares getDeadSquares() {
+        return deadSquares;
+    }
+
+    /**
+     * Returns numbering of floor cells, which packs states into compact
+     * form.
+     * @return FloorMap of Problem
+     */
+    public FloorMap getFloorMap() {
+        return floorMap;
+    }
+
+    /**
+     * Returns the number of cells in one row of grid.
+     * @return the number of cells in one row
+     */
+    public int getStride() {
+        return stride;
+    }
+
+    /**
+     * Returns the number of cells in grid.
+     * @return the number of cells
+     */
+    public int getCellsCount() {
+        return cells.length;
+    }
+
+    /**
+     * Returns difference between indexes of cell and its neighbour in
+     * direction with given ordinal.
+     * @param direction ordinal of direction of neighbour
+     * @return difference between indexes
+     */
+    public int getOffset(int direction) {
+        return offsets[direction];
+    }
+
+    /**
+     * Checks if there is a Wall in cell with given index.
+     * @param index index of cell
+     * @return true if there is a Wall; false otherwise
+     */
+    public boolean isWall(int index) {
+        return (cells[index] & Engine.WALL) != 0;
+    }
+
+    /**
+     * Checks if there is a Spot in cell with given index.
+     * @param index index of cell
+     * @return true if there is a Spot; false otherwise
+     */
+    public boolean isSpot(int index) {
+        return (cells[index] & Engine.SPOT) != 0;
+    }
+
+    /**
+     * Returns copy of flags of all cells.
+     * @return flags of all cells
+     */
+    public byte[] getCells() {
+        return cells.clone();
+    }
+
+    /**
+     * Returns sorted indexes of cells with Spots.
+     * @return indexes of cells with Spots
+     */
+    public int[] getSpots() {
+        return spots.clone();
+    }
+
+    /**
+     * Returns sorted indexes of cells with Boxes at the beginning.
+     * @return indexes of cells with Boxes
+     */
+    public int[] getBoxes() {
+        return boxes.clone();
+    }
+
+    /**
+     * Returns index of cell with Player at the beginning.
+     * @return index of cell with Player
+     */
+    public int getPlayer() {
+        return player;
+    }
+
+    /**
+     * Returns the number of Boxes.
+     * @return the number of Boxes
+     */
+    public int getBoxesCount() {
+        return boxes.length;
+    }
+}
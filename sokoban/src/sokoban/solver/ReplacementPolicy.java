@@ -0,0 +1,12 @@
+package sokoban.solver;
+
+/**
+ * Policy deciding what StateTable does when there is no free slot for new
+ * state. NEVER drops new state, ALWAYS replaces state in its home slot and
+ * CHEAPEST replaces state with the smallest stored value.
+ *
+ * @author Ketom
+ */
+public enum ReplacementPolicy {
+    NEVER, ALWAYS, CHEAPEST
+}
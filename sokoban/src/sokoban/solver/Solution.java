@@ -0,0 +1,125 @@
+package sokoban.solver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Solution of a Level written in LURD notation. Lower case letters are moves
+ * of the player, upper case letters are pushes of boxes.
+ *
+ * @author Ketom
+ */
+public class Solution {
+    /**
+     * Moves of the player in LURD notation.
+     */
+    private String moves;
+
+    /**
+     * The number of pushes in this Solution.
+     */
+    private int pushesCount;
+
+    /**
+     * Constructs Solution from moves written in LURD notation.
+     * @param moves moves of the player in LURD notation
+     */
+    public Solution(String moves) {
+        this.moves = moves;
+        for(int i = 0; i < moves.length(); i++) {
+            if(Character.isUpperCase(moves.charAt(i))) {
+                pushesCount++;
+            }
+        }
+    }
+
+    /**
+     * Constructs Solution from sequence of pushes, connecting them with the
+     * shortest paths of the player.
+     * @param problem Problem which is solved
+     * @param pushes pushes encoded as in Node
+     * @return Solution consisting of given pushes
+     * @throws IllegalArgumentException when pushes can't be performed
+     */
+    public static Solution fromPushes(Problem problem, int[] pushes) {
+        Position position = new Position(problem);
+        int[] boxes = problem.getBoxes();
+        int player = problem.getPlayer();
+        StringBuilder moves = new StringBuilder();
+
+        for(int push : pushes) {
+            int box = push / 4;
+            int direction = push % 4;
+            String path = position.findPath(player, box - problem.getOffset(direction));
+            if(path == null || !position.isBox(box)) {
+                throw new IllegalArgumentException("Push of box from cell " + box + " can't be performed");
+            }
+            moves.append(path);
+            moves.append(Character.toUpperCase(Position.LETTERS[direction]));
+
+            boxes = boxes.clone();
+            for(int i = 0; i < boxes.length; i++) {
+                if(boxes[i] == box) {
+                    boxes[i] = box + problem.getOffset(direction);
+                }
+            }
+            player = box;
+            position.set(boxes, player);
+        }
+        return new Solution(moves.toString());
+    }
+
+    /**
+     * Constructs Solution from pushes leading from the root to given Node.
+     * @param problem Problem which is solved
+     * @param node last Node of the solution
+     * @return Solution leading to given Node
+     */
+    public static Solution fromNode(Problem problem, Node node) {
+        List<Integer> list = new ArrayList<>();
+        for(; node.getParent() != null; node = node.getParent()) {
+            int[] nodePushes = node.getPushes();
+            for(int i = nodePushes.length - 1; i >= 0; i--) {
+                list.add(nodePushes[i]);
+            }
+        }
+        int[] pushes = new int[list.size()];
+        for(int i = 0; i < pushes.length; i++) {
+            pushes[i] = list.get(pushes.length - 1 - i);
+        }
+        return fromPushes(problem, pushes);
+    }
+
+    /**
+     * Returns moves of the player in LURD notation.
+     * @return moves in LURD notation
+     */
+    public String getMoves() {
+        return moves;
+    }
+
+    /**
+     * Returns the number of moves of the player, including pushes.
+     * @return the number of moves
+     */
+    public int getMovesCount() {
+        return moves.length();
+    }
+
+    /**
+     * Returns the number of pushes.
+     * @return the number of pushes
+     */
+    public int getPushesCount() {
+        return pushesCount;
+    }
+
+    /**
+     * Returns moves of the player in LURD notation.
+     * @return moves in LURD notation
+     */
+    @Override
+    public String toString() {
+        return moves;
+    }
+}
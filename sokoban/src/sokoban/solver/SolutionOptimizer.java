@@ -0,0 +1,276 @@
+package sokoban.solver;
+
+import sokoban.engine.Engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Optimizer improving existing solutions of a Problem. Solution is split
+ * into pushes, and states between them are computed. Then for every window
+ * of consecutive pushes, states at both ends of window are connected by
+ * breadth first search, and if it finds fewer pushes, they replace the
+ * window. Windows overlap by half, and passes are repeated as long as the
+ * solution gets shorter.
+ *
+ * Finally pushes are connected with the shortest paths of the player, so
+ * moves between pushes are optimized as well. Search of every window is
+ * bounded by the number of nodes, so optimizer is fast even on big levels,
+ * but solution isn't guaranteed to become optimal.
+ *
+ * @author Ketom
+ */
+public class SolutionOptimizer {
+    /**
+     * Default number of pushes in one window.
+     */
+    public static final int DEFAULT_WINDOW = 20;
+
+    /**
+     * Default maximum number of nodes expanded in one window.
+     */
+    public static final long DEFAULT_NODES_LIMIT = 50000;
+
+    /**
+     * Problem which solutions are optimized.
+     */
+    private Problem problem;
+
+    /**
+     * Position used to examine states.
+     */
+    private Position position;
+
+    /**
+     * The number of pushes in one window.
+     */
+    private int window = DEFAULT_WINDOW;
+
+    /**
+     * Maximum number of nodes expanded in one window.
+     */
+    private long nodesLimit = DEFAULT_NODES_LIMIT;
+
+    /**
+     * Constructs SolutionOptimizer of given Problem.
+     * @param problem Problem which solutions will be optimized
+     */
+    public SolutionOptimizer(Problem problem) {
+        this.problem = problem;
+        this.position = new Position(problem);
+    }
+
+    /**
+     * Sets the number of pushes in one window. Bigger windows find more
+     * improvements, but take more time.
+     * @param window the number of pushes, at least 2
+     */
+    public void setWindow(int window) {
+        if(window < 2) {
+            throw new IllegalArgumentException("Window must have at least 2 pushes");
+        }
+        this.window = window;
+    }
+
+    /**
+     * Sets maximum number of nodes expanded in one window.
+     * @param nodesLimit maximum number of nodes
+     */
+    public void setNodesLimit(long nodesLimit) {
+        this.nodesLimit = nodesLimit;
+    }
+
+    /**
+     * Optimizes given Solution.
+     * @param solution valid Solution of Problem
+     * @return Solution with no more pushes, and no more moves if the number
+     * of pushes is the same
+     * @throws IllegalArgumentException when Solution doesn't solve Problem
+     */
+    public Solution optimize(Solution solution) {
+        int[] pushes = parse(problem, solution.getMoves());
+        boolean improved = true;
+        while(improved) {
+            improved = false;
+            State[] states = replay(pushes);
+            for(int start = 0; start < pushes.length; start += Math.max(1, window / 2)) {
+                int end = Math.min(start + window, pushes.length);
+                int[] shorter = search(states[start], states[end], end - start - 1);
+                if(shorter != null) {
+                    pushes = splice(pushes, start, end, shorter);
+                    states = replay(pushes);
+                    improved = true;
+                }
+            }
+        }
+
+        Solution optimized = Solution.fromPushes(problem, pushes);
+        if(optimized.getPushesCount() == solution.getPushesCount() && optimized.getMovesCount() > solution.getMovesCount()) {
+            return solution;
+        }
+        return optimized;
+    }
+
+    /**
+     * Converts moves in LURD notation to pushes. Letters of pushes may be
+     * written in any case, as pushes are recognized by boxes on the way.
+     * @param problem Problem which is solved
+     * @param moves moves of the player in LURD notation
+     * @return pushes encoded as in Node
+     * @throws IllegalArgumentException when moves can't be performed or
+     * don't solve Problem
+     */
+    public static int[] parse(Problem problem, String moves) {
+        return parse(problem, moves, true);
+    }
+
+    /**
+     * Converts moves in LURD notation to pushes, optionally accepting moves
+     * which lead only part of the way, e.g. to a State with known solution.
+     * @param problem Problem which is solved
+     * @param moves moves of the player in LURD notation
+     * @param complete true if moves must solve Problem; false otherwise
+     * @return pushes encoded as in Node
+     * @throws IllegalArgumentException when moves can't be performed or
+     * are complete and don't solve Problem
+     */
+    public static int[] parse(Problem problem, String moves, boolean complete) {
+        byte[] cells = problem.getCells();
+        for(int box : problem.getBoxes()) {
+            cells[box] |= Engine.BOX;
+        }
+        int player = problem.getPlayer();
+        int[] pushes = new int[moves.length()];
+        int count = 0;
+
+        for(int i = 0; i < moves.length(); i++) {
+            int direction = String.valueOf(Position.LETTERS).indexOf(Character.toLowerCase(moves.charAt(i)));
+            if(direction == -1) {
+                throw new IllegalArgumentException("Invalid move '" + moves.charAt(i) + "' at " + i);
+            }
+            int offset = problem.getOffset(direction);
+            int target = player + offset;
+            if((cells[target] & Engine.BOX) != 0) {
+                if((cells[target + offset] & (Engine.WALL | Engine.BOX)) != 0) {
+                    throw new IllegalArgumentException("Push at " + i + " is blocked");
+                }
+                cells[target] &= ~Engine.BOX;
+                cells[target + offset] |= Engine.BOX;
+                pushes[count++] = Node.encodePush(target, direction);
+            } else if((cells[target] & Engine.WALL) != 0) {
+                throw new IllegalArgumentException("Move at " + i + " is blocked");
+            }
+            player = target;
+        }
+
+        for(int spot : problem.getSpots()) {
+            if(complete && (cells[spot] & Engine.BOX) == 0) {
+                throw new IllegalArgumentException("Moves don't solve the level");
+            }
+        }
+        return Arrays.copyOf(pushes, count);
+    }
+
+    /**
+     * Computes states before every push and after the last one.
+     * @param pushes encoded pushes
+     * @return states, one more than pushes
+     */
+    private State[] replay(int[] pushes) {
+        State[] states = new State[pushes.length + 1];
+        position.set(problem.getBoxes(), problem.getPlayer());
+        states[0] = new State(problem.getBoxes(), position.getNormalizedPlayer());
+        for(int i = 0; i < pushes.length; i++) {
+            int box = pushes[i] / 4;
+            int target = box + problem.getOffset(pushes[i] % 4);
+            int[] boxes = states[i].getBoxes();
+            position.set(states[i]);
+            State state = states[i].moveBox(Arrays.binarySearch(boxes, box), target, position.normalizeAfterPush(box, target));
+            states[i + 1] = state;
+        }
+        return states;
+    }
+
+    /**
+     * Searches for pushes leading from one State to other, breadth first.
+     * @param from starting State
+     * @param to target State
+     * @param maxPushes maximum number of pushes
+     * @return encoded pushes; null if there are no such pushes or search
+     * exceeded its limit
+     */
+    private int[] search(State from, State to, int maxPushes) {
+        Map<State, Node> visited = new HashMap<>();
+        List<Node> layer = new ArrayList<>();
+        Node root = new Node(from, null, -1, 0, 0);
+        visited.put(from, root);
+        layer.add(root);
+        long nodesCount = 0;
+
+        for(int depth = 0; depth < maxPushes && !layer.isEmpty(); depth++) {
+            List<Node> next = new ArrayList<>();
+            for(Node node : layer) {
+                if(++nodesCount > nodesLimit) {
+                    return null;
+                }
+                State state = node.getState();
+                int[] boxes = state.getBoxes();
+                position.set(state);
+                for(int i = 0; i < boxes.length; i++) {
+                    int box = boxes[i];
+                    for(int direction = 0; direction < 4; direction++) {
+                        int offset = problem.getOffset(direction);
+                        int target = box + offset;
+                        if(position.isBlocked(target) || problem.isDeadSquare(target) || !position.isReachable(box - offset) || position.isFreezeDeadlock(box, target)) {
+                            continue;
+                        }
+                        State child = state.moveBox(i, target, position.normalizeAfterPush(box, target));
+                        if(visited.containsKey(child)) {
+                            continue;
+                        }
+                        Node childNode = new Node(child, node, Node.encodePush(box, direction), node.getCost() + 1, 0);
+                        if(child.equals(to)) {
+                            return getPushes(childNode);
+                        }
+                        visited.put(child, childNode);
+                        next.add(childNode);
+                    }
+                }
+            }
+            layer = next;
+        }
+        return null;
+    }
+
+    /**
+     * Returns pushes leading from the root to given Node.
+     * @param node the last Node
+     * @return encoded pushes
+     */
+    private static int[] getPushes(Node node) {
+        int[] pushes = new int[node.getCost()];
+        for(int i = pushes.length - 1; i >= 0; i--, node = node.getParent()) {
+            pushes[i] = node.getPush();
+        }
+        return pushes;
+    }
+
+    /**
+     * Replaces pushes from start to end with other pushes.
+     * @param pushes all pushes
+     * @param start index of the first replaced push
+     * @param end index after the last replaced push
+     * @param replacement new pushes
+     * @return pushes after replacement
+     */
+    private static int[] splice(int[] pushes, int start, int end, int[] replacement) {
+        int[] result = new int[pushes.length - (end - start) + replacement.length];
+        System.arraycopy(pushes, 0, result, 0, start);
+        System.arraycopy(replacement, 0, result, start, replacement.length);
+        System.arraycopy(pushes, end, result, start + replacement.length, pushes.length - end);
+        return result;
+    }
+}
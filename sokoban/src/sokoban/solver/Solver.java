@@ -0,0 +1,296 @@
+package sokoban.solver;
+
+import sokoban.domain.Level;
+
+/**
+ * Generic Solver searching for solutions of Levels. Derived classes
+ * implement various search algorithms.
+ *
+ * Search can be bounded by time, by the number of expanded nodes and by
+ * memory, and can be aborted from other thread. Memory used by search is
+ * estimated from sizes of its sets, as every solver knows how many bytes
+ * one entry of its sets takes, plus memory allocated outside of the heap.
+ * Bounded search which hasn't found a solution returns null, and its
+ * Statistics are marked as aborted. Abort requested before search starts
+ * stops it as soon as it starts, as request is cleared only when search
+ * ends.
+ *
+ * Progress of search is published periodically to SolverListener, as
+ * Statistics updated with current sizes of sets, bound, memory usage and
+ * pruned pushes.
+ *
+ * @author Ketom
+ */
+public abstract class Solver {
+    /**
+     * Default interval between progress reports in milliseconds.
+     */
+    public static final long DEFAULT_PROGRESS_INTERVAL = 1000;
+
+    /**
+     * Statistics of the last search.
+     */
+    protected Statistics statistics = new Statistics();
+
+    /**
+     * Maximum duration of search in milliseconds; 0 if unlimited.
+     */
+    private long timeLimit;
+
+    /**
+     * Maximum number of expanded nodes; 0 if unlimited.
+     */
+    private long nodesLimit;
+
+    /**
+     * Maximum estimated memory used by search in bytes; 0 if unlimited.
+     */
+    private long memoryLimit;
+
+    /**
+     * Estimated number of bytes used by one node waiting for expansion.
+     */
+    private long openEntrySize;
+
+    /**
+     * Estimated number of bytes used by one visited state.
+     */
+    private long closedEntrySize;
+
+    /**
+     * Time in milliseconds after which current search is aborted;
+     * Long.MAX_VALUE if there is no time limit.
+     */
+    private long deadline = Long.MAX_VALUE;
+
+    /**
+     * Whether abort of current search has been requested.
+     */
+    private volatile boolean abortRequested;
+
+    /**
+     * Listener receiving progress of search; null if there is none.
+     */
+    private SolverListener listener;
+
+    /**
+     * Interval between progress reports in milliseconds.
+     */
+    private long progressInterval = DEFAULT_PROGRESS_INTERVAL;
+
+    /**
+     * Time in milliseconds at which current search started.
+     */
+    private long startTime;
+
+    /**
+     * Time in milliseconds of the next progress report.
+     */
+    private long nextReport;
+
+    /**
+     * Searches for solution of given Level.
+     * @param level Level to be solved
+     * @return found Solution; null if Level can't be solved
+     * @throws IllegalArgumentException when Level has no Player or the number
+     * of Boxes is different than the number of Spots
+     */
+    public Solution solve(Level level) {
+        return solve(new Problem(level));
+    }
+
+    /**
+     * Searches for solution of given Problem.
+     * @param problem Problem to be solved
+     * @return found Solution; null if Problem can't be solved
+     */
+    public Solution solve(Problem problem) {
+        try {
+            return search(problem);
+        } finally {
+            abortRequested = false;
+        }
+    }
+
+    /**
+     * Performs search for solution of given Problem. Implemented by derived
+     * classes, which call startSearch() at its beginning.
+     * @param problem Problem to be solved
+     * @return found Solution; null if Problem can't be solved
+     */
+    protected abstract Solution search(Problem problem);
+
+    /**
+     * Returns Statistics of the last search.
+     * @return Statistics of the last search
+     */
+    public Statistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Sets maximum duration of every search.
+     * @param timeLimit maximum duration in milliseconds; 0 if unlimited
+     */
+    public void setTimeLimit(long timeLimit) {
+        this.timeLimit = timeLimit;
+    }
+
+    /**
+     * Sets maximum number of nodes expanded by every search.
+     * @param nodesLimit maximum number of expanded nodes; 0 if unlimited
+     */
+    public void setNodesLimit(long nodesLimit) {
+        this.nodesLimit = nodesLimit;
+    }
+
+    /**
+     * Sets maximum memory used by every search. Search is aborted when
+     * estimated size of its sets together with memory allocated outside of
+     * the heap exceeds it, and its Statistics are marked as such.
+     * @param memoryLimit maximum memory in bytes; 0 if unlimited
+     */
+    public void setMemoryLimit(long memoryLimit) {
+        this.memoryLimit = memoryLimit;
+    }
+
+    /**
+     * Sets listener receiving progress of search.
+     * @param listener listener of progress; null if progress shouldn't be
+     * reported
+     */
+    public void setListener(SolverListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets interval between progress reports.
+     * @param progressInterval interval in milliseconds
+     */
+    public void setProgressInterval(long progressInterval) {
+        this.progressInterval = progressInterval;
+    }
+
+    /**
+     * Requests abort of current search. It can be called from any thread;
+     * search returns null soon after. When no search is running, the next
+     * search is aborted as soon as it starts.
+     */
+    public void abort() {
+        abortRequested = true;
+    }
+
+    /**
+     * Prepares new search: creates new Statistics and starts measuring its
+     * time limit. Derived classes call it at the beginning of search().
+     */
+    protected void startSearch() {
+        statistics = new Statistics();
+        startTime = System.currentTimeMillis();
+        nextReport = startTime + progressInterval;
+        deadline = (timeLimit > 0) ? startTime + timeLimit : Long.MAX_VALUE;
+        openEntrySize = 0;
+        closedEntrySize = 0;
+    }
+
+    /**
+     * Sets estimated sizes of entries of sets of current search, used to
+     * check memory limit. Derived classes call it after startSearch().
+     * @param openEntrySize bytes used by one node waiting for expansion
+     * @param closedEntrySize bytes used by one visited state
+     */
+    protected void setEntrySizes(long openEntrySize, long closedEntrySize) {
+        this.openEntrySize = openEntrySize;
+        this.closedEntrySize = closedEntrySize;
+    }
+
+    /**
+     * Returns estimated number of bytes used on the heap by Node with its
+     * State and array of boxes.
+     * @param boxesCount the number of boxes
+     * @return size of Node in bytes
+     */
+    protected static long getNodeSize(int boxesCount) {
+        return 80 + 4L * boxesCount;
+    }
+
+    /**
+     * Checks if estimated memory used by current search exceeds its limit.
+     * It doesn't change Statistics, so it can be called by many threads of
+     * one search at once.
+     * @param openSetSize the number of nodes waiting for expansion
+     * @param closedSetSize the number of visited states
+     * @return true if memory limit is exceeded; false otherwise
+     */
+    protected boolean isMemoryExceeded(long openSetSize, long closedSetSize) {
+        if(memoryLimit <= 0) {
+            return false;
+        }
+        long memory = openSetSize * openEntrySize + closedSetSize * closedEntrySize + statistics.getOffHeapMemory();
+        return memory > memoryLimit;
+    }
+
+    /**
+     * Checks if current search should be stopped, because it has been
+     * aborted or it has exceeded its time limit or given nodes limit. Unlike
+     * isLimitReached(), it doesn't report progress nor change Statistics, so
+     * it can be called by many threads of one search at once.
+     * @param nodesCount the number of nodes expanded so far
+     * @return true if search should be stopped; false otherwise
+     */
+    protected boolean isStopRequested(long nodesCount) {
+        return abortRequested || (nodesLimit > 0 && nodesCount >= nodesLimit) || System.currentTimeMillis() >= deadline;
+    }
+
+    /**
+     * Checks if current search should be stopped, because it has been
+     * aborted or it has exceeded its limits. Statistics are marked as
+     * aborted when it happens.
+     * @param nodesCount the number of nodes expanded so far
+     * @return true if search should be stopped; false otherwise
+     */
+    protected boolean isLimitReached(long nodesCount) {
+        return isLimitReached(nodesCount, statistics.getOpenSetSize(), statistics.getClosedSetSize(), statistics.getBound());
+    }
+
+    /**
+     * Checks if current search should be stopped, because it has been
+     * aborted or it has exceeded its limits, and reports progress to the
+     * listener when it's time. Statistics are marked as aborted when search
+     * should be stopped.
+     * @param nodesCount the number of nodes expanded so far
+     * @param openSetSize the number of nodes waiting for expansion
+     * @param closedSetSize the number of visited states
+     * @param bound current bound of search
+     * @return true if search should be stopped; false otherwise
+     */
+    protected boolean isLimitReached(long nodesCount, long openSetSize, long closedSetSize, int bound) {
+        if(listener != null || deadline != Long.MAX_VALUE) {
+            long now = System.currentTimeMillis();
+            if(listener != null && now >= nextReport) {
+                nextReport = now + progressInterval;
+                Runtime runtime = Runtime.getRuntime();
+                statistics.setNodesCount(nodesCount);
+                statistics.setOpenSetSize(openSetSize);
+                statistics.setClosedSetSize(closedSetSize);
+                statistics.setBound(bound);
+                statistics.setHeapMemory(runtime.totalMemory() - runtime.freeMemory());
+                statistics.setElapsedTime(now - startTime);
+                listener.onProgress(this, statistics);
+            }
+            if(now >= deadline) {
+                abortRequested = true;
+            }
+        }
+        if(isMemoryExceeded(openSetSize, closedSetSize)) {
+            statistics.setMemoryExceeded(true);
+            statistics.setAborted(true);
+            return true;
+        }
+        if(abortRequested || (nodesLimit > 0 && nodesCount >= nodesLimit)) {
+            statistics.setAborted(true);
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,17 @@
+package sokoban.solver;
+
+/**
+ * Listener receiving progress of search from Solver. It's called
+ * periodically on the thread of search, so it should return quickly.
+ * Solver can be aborted from the listener.
+ *
+ * @author Ketom
+ */
+public interface SolverListener {
+    /**
+     * Called periodically during search.
+     * @param solver Solver performing search
+     * @param statistics current Statistics of search
+     */
+    void onProgress(Solver solver, Statistics statistics);
+}
@@ -0,0 +1,87 @@
+package sokoban.solver;
+
+/**
+ * Report of how search time changes with the number of threads used by
+ * ParallelSolver. Speedup of every run is measured against the first run.
+ *
+ * @author Ketom
+ */
+public class SpeedupReport {
+    /**
+     * Numbers of threads used in runs.
+     */
+    private int[] threadCounts;
+
+    /**
+     * Durations of runs in milliseconds.
+     */
+    private long[] times;
+
+    /**
+     * Constructs SpeedupReport.
+     * @param threadCounts numbers of threads used in runs
+     * @param times durations of runs in milliseconds
+     */
+    public SpeedupReport(int[] threadCounts, long[] times) {
+        this.threadCounts = threadCounts.clone();
+        this.times = times.clone();
+    }
+
+    /**
+     * Returns the number of runs.
+     * @return the number of runs
+     */
+    public int getRunsCount() {
+        return threadCounts.length;
+    }
+
+    /**
+     * Returns the number of threads used in given run.
+     * @param run index of run
+     * @return the number of threads
+     */
+    public int getThreadCount(int run) {
+        return threadCounts[run];
+    }
+
+    /**
+     * Returns duration of given run in milliseconds.
+     * @param run index of run
+     * @return duration of run
+     */
+    public long getTime(int run) {
+        return times[run];
+    }
+
+    /**
+     * Returns how many times given run was faster than the first one.
+     * @param run index of run
+     * @return speedup of run
+     */
+    public double getSpeedup(int run) {
+        return (double) Math.max(times[0], 1) / Math.max(times[run], 1);
+    }
+
+    /**
+     * Returns speedup of given run divided by the number of threads relative
+     * to the first run. Equals 1 for linear scaling.
+     * @param run index of run
+     * @return efficiency of run
+     */
+    public double getEfficiency(int run) {
+        return getSpeedup(run) * threadCounts[0] / threadCounts[run];
+    }
+
+    /**
+     * Returns a table with one run in every line.
+     * @return a string representation of this SpeedupReport
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("threads\ttime [ms]\tspeedup\tefficiency\n");
+        for(int run = 0; run < threadCounts.length; run++) {
+            builder.append(String.format("%d\t%d\t%.2f\t%.2f%n", threadCounts[run], times[run], getSpeedup(run), getEfficiency(run)));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,285 @@
+package sokoban.solver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * StateTable which moves visited states to disk instead of dropping them
+ * when it's full. When half of slots are occupied, hashes of all states in
+ * memory are sorted and written to a chunk file, and memory is cleared.
+ * When there are too many chunks, they are merged into one, removing
+ * duplicates.
+ *
+ * Checking every state on disk would be far too slow, so contains() and
+ * add() see only states in memory. States on disk are found by
+ * findSpilled() for a whole batch of states at once: hashes of batch are
+ * sorted and every chunk is read once from start to end, as in delayed
+ * duplicate detection. A* search checks all nodes of one estimated total in
+ * such batch.
+ *
+ * @author Ketom
+ */
+public class SpillingStateTable extends StateTable {
+    /**
+     * The number of chunks above which they are merged into one.
+     */
+    private static final int MAX_CHUNKS = 8;
+
+    /**
+     * Size of buffers of chunk files in bytes.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Directory in which chunk files are created.
+     */
+    private File directory;
+
+    /**
+     * Chunk files, each containing sorted hashes without duplicates.
+     */
+    private List<File> chunks = new ArrayList<>();
+
+    /**
+     * The number of hashes in chunk files.
+     */
+    private long spilledCount;
+
+    /**
+     * Constructs SpillingStateTable using at most given number of bytes of
+     * memory.
+     * @param bytes memory budget of the table in bytes
+     * @param directory directory in which chunk files are created
+     */
+    public SpillingStateTable(long bytes, File directory) {
+        super(bytes, ReplacementPolicy.NEVER);
+        this.directory = directory;
+    }
+
+    /**
+     * Adds state with given hash and value to the table, unless it's already
+     * in memory. Moves all states to disk when memory is half full, or when
+     * there is no free slot for the state, which is then added to emptied
+     * memory.
+     * @param key hash of state
+     * @param value value of state, must not be negative
+     * @return false if state was already in memory; true otherwise
+     */
+    @Override
+    public boolean add(long key, int value) {
+        long evictions = getEvictions();
+        if(!super.add(key, value)) {
+            return false;
+        }
+        if(getEvictions() != evictions) {
+            spill();
+            super.add(key, value);
+        } else if(super.size() >= capacity() / 2) {
+            spill();
+        }
+        return true;
+    }
+
+    /**
+     * Checks which of given states were moved to disk. Every chunk file is
+     * read once.
+     * @param keys hashes of states
+     * @return array with true for states found on disk
+     */
+    public boolean[] findSpilled(long[] keys) {
+        long[] sorted = new long[keys.length];
+        for(int i = 0; i < keys.length; i++) {
+            sorted[i] = normalize(keys[i]);
+        }
+        Arrays.sort(sorted);
+        boolean[] foundSorted = new boolean[sorted.length];
+        try {
+            for(File chunk : chunks) {
+                try(DataInputStream in = open(chunk)) {
+                    int i = 0;
+                    long key = next(in);
+                    while(i < sorted.length && key != 0) {
+                        if(key < sorted[i]) {
+                            key = next(in);
+                        } else {
+                            foundSorted[i] |= key == sorted[i];
+                            i++;
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        boolean[] found = new boolean[keys.length];
+        for(int i = 0; i < keys.length; i++) {
+            found[i] = foundSorted[Arrays.binarySearch(sorted, normalize(keys[i]))];
+        }
+        return found;
+    }
+
+    /**
+     * Returns the number of stored states, both in memory and on disk.
+     * @return the number of stored states
+     */
+    @Override
+    public long size() {
+        return super.size() + spilledCount;
+    }
+
+    /**
+     * Returns the number of states moved to disk.
+     * @return the number of states on disk
+     */
+    public long getSpilledCount() {
+        return spilledCount;
+    }
+
+    /**
+     * Returns the number of chunk files.
+     * @return the number of chunks
+     */
+    public int getChunksCount() {
+        return chunks.size();
+    }
+
+    /**
+     * Removes all states, both from memory and from disk.
+     */
+    @Override
+    public void clear() {
+        super.clear();
+        delete();
+    }
+
+    /**
+     * Deletes all chunk files. States in memory are kept.
+     */
+    public void delete() {
+        for(File chunk : chunks) {
+            chunk.delete();
+        }
+        chunks.clear();
+        spilledCount = 0;
+    }
+
+    /**
+     * Writes hashes of states in memory to new chunk file and clears memory.
+     * Merges chunks if there are too many of them.
+     */
+    private void spill() {
+        long[] keys = getKeys();
+        Arrays.sort(keys);
+        super.clear();
+        try {
+            File chunk = File.createTempFile("states", ".chunk", directory);
+            chunks.add(chunk);
+            try(DataOutputStream out = create(chunk)) {
+                for(long key : keys) {
+                    out.writeLong(key);
+                }
+            }
+            spilledCount += keys.length;
+            if(chunks.size() > MAX_CHUNKS) {
+                merge();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Merges all chunk files into one, removing duplicates.
+     * @throws IOException when unable to read or write chunks
+     */
+    private void merge() throws IOException {
+        File merged = File.createTempFile("states", ".chunk", directory);
+        DataInputStream[] inputs = new DataInputStream[chunks.size()];
+        long[] heads = new long[inputs.length];
+        long count = 0;
+        boolean written = false;
+        try(DataOutputStream out = create(merged)) {
+            for(int i = 0; i < inputs.length; i++) {
+                inputs[i] = open(chunks.get(i));
+                heads[i] = next(inputs[i]);
+            }
+            long last = 0;
+            while(true) {
+                int min = -1;
+                for(int i = 0; i < heads.length; i++) {
+                    if(heads[i] != 0 && (min == -1 || heads[i] < heads[min])) {
+                        min = i;
+                    }
+                }
+                if(min == -1) {
+                    break;
+                }
+                if(heads[min] != last) {
+                    last = heads[min];
+                    out.writeLong(last);
+                    count++;
+                }
+                heads[min] = next(inputs[min]);
+            }
+            written = true;
+        } finally {
+            for(DataInputStream in : inputs) {
+                if(in != null) {
+                    in.close();
+                }
+            }
+            if(!written) {
+                merged.delete();
+            }
+        }
+        delete();
+        chunks.add(merged);
+        spilledCount = count;
+    }
+
+    /**
+     * Reads the next hash from chunk file.
+     * @param in stream of chunk file
+     * @return the next hash; 0 at the end of file
+     * @throws IOException when unable to read chunk
+     */
+    private static long next(DataInputStream in) throws IOException {
+        try {
+            return in.readLong();
+        } catch (EOFException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Opens chunk file for reading.
+     * @param chunk chunk file
+     * @return buffered stream of chunk
+     * @throws IOException when unable to open chunk
+     */
+    private static DataInputStream open(File chunk) throws IOException {
+        return new DataInputStream(new BufferedInputStream(new FileInputStream(chunk), BUFFER_SIZE));
+    }
+
+    /**
+     * Creates chunk file for writing.
+     * @param chunk chunk file
+     * @return buffered stream of chunk
+     * @throws IOException when unable to create chunk
+     */
+    private static DataOutputStream create(File chunk) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(chunk), BUFFER_SIZE));
+    }
+}
@@ -0,0 +1,117 @@
+package sokoban.solver;
+
+import java.util.Arrays;
+
+/**
+ * Compact state of the game used by solvers. It consists of sorted indexes
+ * of cells with boxes and normalized position of the player, being the
+ * smallest index of cell the player can reach. All positions from which the
+ * player can reach the same cells are therefore represented by one State.
+ *
+ * @author Ketom
+ */
+public class State {
+    /**
+     * Sorted indexes of cells with boxes.
+     */
+    private int[] boxes;
+
+    /**
+     * Normalized position of the player.
+     */
+    private int player;
+
+    /**
+     * Cached hash code of this State.
+     */
+    private int hash;
+
+    /**
+     * Constructs State with given boxes and normalized player position.
+     * Given array is used directly and must not be modified later.
+     * @param boxes sorted indexes of cells with boxes
+     * @param player normalized position of the player
+     */
+    public State(int[] boxes, int player) {
+        this.boxes = boxes;
+        this.player = player;
+        this.hash = 31 * Arrays.hashCode(boxes) + player;
+    }
+
+    /**
+     * Constructs State which differs from this one by position of one box.
+     * @param box position in array of box which has been moved
+     * @param target index of cell to which box has been moved
+     * @param player normalized position of the player in the new State
+     * @return new State
+     */
+    public State moveBox(int box, int target, int player) {
+        int[] newBoxes = boxes.clone();
+        int i = box;
+        while(i > 0 && newBoxes[i - 1] > target) {
+            newBoxes[i] = newBoxes[i - 1];
+            i--;
+        }
+        while(i < newBoxes.length - 1 && newBoxes[i + 1] < target) {
+            newBoxes[i] = newBoxes[i + 1];
+            i++;
+        }
+        newBoxes[i] = target;
+        return new State(newBoxes, player);
+    }
+
+    /**
+     * Returns sorted indexes of cells with boxes. Returned array must not be
+     * modified.
+     * @return indexes of cells with boxes
+     */
+    public int[] getBoxes() {
+        return boxes;
+    }
+
+    /**
+     * Returns normalized position of the player.
+     * @return normalized position of the player
+     */
+    public int getPlayer() {
+        return player;
+    }
+
+    /**
+     * Determines whether or not two states are equal. Two instances of State
+     * are equal if they have boxes on the same cells and the same normalized
+     * position of the player.
+     * @param object an object to be compared with this State
+     * @return true if the object to be compared is an instance of State and
+     * represents the same position; false otherwise
+     */
+    @Override
+    public boolean equals(Object object) {
+        if(this == object) {
+            return true;
+        }
+        if(object instanceof State) {
+            State state = (State) object;
+            return hash == state.hash && player == state.player && Arrays.equals(boxes, state.boxes);
+        }
+        return false;
+    }
+
+    /**
+     * Returns hash code of this State.
+     * @return hash code of this State
+     */
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * Returns a string representation of this State.
+     * @return a string representation of this State
+     */
+    @Override
+    public String toString() {
+        return "State(" + Arrays.toString(boxes) + ", " + player + ')';
+    }
+}
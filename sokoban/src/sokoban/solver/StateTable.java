@@ -0,0 +1,268 @@
+package sokoban.solver;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hash table mapping Zobrist hashes of states to integer values (e.g. the
+ * number of pushes), stored outside of the heap in direct ByteBuffers.
+ * States are placed by open addressing with linear probing. The table has
+ * fixed capacity computed from given byte budget, and when there is no free
+ * slot for new state, ReplacementPolicy decides what happens.
+ *
+ * As only hashes are stored, two different states with the same hash are
+ * treated as one. With 64-bit hashes this is very unlikely even for
+ * hundreds of millions of states.
+ *
+ * @author Ketom
+ */
+public class StateTable {
+    /**
+     * Value returned by get() for states which are not in the table.
+     */
+    public static final int NOT_FOUND = -1;
+
+    /**
+     * The number of bytes used by one slot: hash and value.
+     */
+    public static final int SLOT_SIZE = Long.BYTES + Integer.BYTES;
+
+    /**
+     * The number of slots searched for state before giving up.
+     */
+    private static final int PROBE_LIMIT = 8;
+
+    /**
+     * Base 2 logarithm of the number of slots in one segment.
+     */
+    private static final int SEGMENT_BITS = 26;
+
+    /**
+     * Segments of the table. Every segment is a separate ByteBuffer, so the
+     * table can be larger than 2 GB.
+     */
+    private ByteBuffer[] segments;
+
+    /**
+     * The number of slots, being power of two.
+     */
+    private long capacity;
+
+    /**
+     * The number of occupied slots.
+     */
+    private long size;
+
+    /**
+     * The number of states dropped or replaced because of lack of space.
+     */
+    private long evictions;
+
+    /**
+     * Policy used when there is no free slot.
+     */
+    private ReplacementPolicy policy;
+
+    /**
+     * Constructs StateTable using at most given number of bytes.
+     * @param bytes memory budget of the table in bytes
+     * @param policy policy used when there is no free slot
+     */
+    public StateTable(long bytes, ReplacementPolicy policy) {
+        this.policy = policy;
+        capacity = Long.highestOneBit(Math.max(bytes / SLOT_SIZE, PROBE_LIMIT));
+        long segmentSlots = Math.min(capacity, 1L << SEGMENT_BITS);
+        List<ByteBuffer> list = new ArrayList<>();
+        for(long slots = 0; slots < capacity; slots += segmentSlots) {
+            list.add(ByteBuffer.allocateDirect((int) (segmentSlots * SLOT_SIZE)));
+        }
+        segments = list.toArray(new ByteBuffer[0]);
+    }
+
+    /**
+     * Returns value stored for state with given hash.
+     * @param key hash of state
+     * @return stored value; NOT_FOUND if state is not in the table
+     */
+    public int get(long key) {
+        key = normalize(key);
+        long home = key & (capacity - 1);
+        for(int i = 0; i < PROBE_LIMIT; i++) {
+            long slot = (home + i) & (capacity - 1);
+            long stored = getKey(slot);
+            if(stored == key) {
+                return getValue(slot);
+            }
+            if(stored == 0) {
+                return NOT_FOUND;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Checks if state with given hash is in the table.
+     * @param key hash of state
+     * @return true if state is in the table; false otherwise
+     */
+    public boolean contains(long key) {
+        return get(key) != NOT_FOUND;
+    }
+
+    /**
+     * Adds state with given hash and value to the table, unless it's already
+     * there. When there is no free slot, state is dropped or replaces other
+     * state, depending on ReplacementPolicy.
+     * @param key hash of state
+     * @param value value of state, must not be negative
+     * @return false if state was already in the table; true otherwise
+     */
+    public boolean add(long key, int value) {
+        key = normalize(key);
+        long home = key & (capacity - 1);
+        long victim = home;
+        int victimValue = Integer.MAX_VALUE;
+        for(int i = 0; i < PROBE_LIMIT; i++) {
+            long slot = (home + i) & (capacity - 1);
+            long stored = getKey(slot);
+            if(stored == key) {
+                return false;
+            }
+            if(stored == 0) {
+                put(slot, key, value);
+                size++;
+                return true;
+            }
+            int storedValue = getValue(slot);
+            if(storedValue < victimValue) {
+                victim = slot;
+                victimValue = storedValue;
+            }
+        }
+
+        evictions++;
+        switch (policy) {
+            case ALWAYS:
+                put(home, key, value);
+                break;
+            case CHEAPEST:
+                put(victim, key, value);
+                break;
+            case NEVER:
+                break;
+        }
+        return true;
+    }
+
+    /**
+     * Removes all states from the table.
+     */
+    public void clear() {
+        for(ByteBuffer segment : segments) {
+            for(int i = 0; i < segment.capacity(); i += Long.BYTES) {
+                segment.putLong(i, 0);
+            }
+        }
+        size = 0;
+        evictions = 0;
+    }
+
+    /**
+     * Returns hashes of all stored states, in order of slots.
+     * @return stored hashes
+     */
+    public long[] getKeys() {
+        long[] keys = new long[(int) size];
+        int count = 0;
+        for(long slot = 0; slot < capacity && count < keys.length; slot++) {
+            long key = getKey(slot);
+            if(key != 0) {
+                keys[count++] = key;
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Returns the number of stored states.
+     * @return the number of stored states
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of slots.
+     * @return capacity of the table
+     */
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of states dropped or replaced because of lack of
+     * space.
+     * @return the number of evictions
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the number of bytes used by the table outside of the heap.
+     * @return memory used by the table
+     */
+    public long getMemoryUsage() {
+        return capacity * SLOT_SIZE;
+    }
+
+    /**
+     * Returns hash stored in given slot.
+     * @param slot index of slot
+     * @return stored hash; 0 for an empty slot
+     */
+    private long getKey(long slot) {
+        return segments[(int) (slot >>> SEGMENT_BITS)].getLong(offset(slot));
+    }
+
+    /**
+     * Returns value stored in given slot.
+     * @param slot index of slot
+     * @return stored value
+     */
+    private int getValue(long slot) {
+        return segments[(int) (slot >>> SEGMENT_BITS)].getInt(offset(slot) + Long.BYTES);
+    }
+
+    /**
+     * Stores hash and value in given slot.
+     * @param slot index of slot
+     * @param key hash of state
+     * @param value value of state
+     */
+    private void put(long slot, long key, int value) {
+        ByteBuffer segment = segments[(int) (slot >>> SEGMENT_BITS)];
+        int offset = offset(slot);
+        segment.putLong(offset, key);
+        segment.putInt(offset + Long.BYTES, value);
+    }
+
+    /**
+     * Returns position of given slot in its segment.
+     * @param slot index of slot
+     * @return offset in bytes
+     */
+    private static int offset(long slot) {
+        return (int) (slot & ((1L << SEGMENT_BITS) - 1)) * SLOT_SIZE;
+    }
+
+    /**
+     * Makes sure that hash of state is different from marker of empty slot.
+     * @param key hash of state
+     * @return hash different from zero
+     */
+    protected static long normalize(long key) {
+        return (key == 0) ? 1 : key;
+    }
+}
@@ -0,0 +1,250 @@
+package sokoban.solver;
+
+/**
+ * Statistics of the last search performed by Solver. During search they
+ * are updated periodically and passed to SolverListener.
+ *
+ * @author Ketom
+ */
+public class Statistics {
+    /**
+     * The number of expanded nodes.
+     */
+    private long nodesCount;
+
+    /**
+     * The number of nodes waiting for expansion when search finished.
+     */
+    private long openSetSize;
+
+    /**
+     * The number of visited states when search finished.
+     */
+    private long closedSetSize;
+
+    /**
+     * Duration of search in milliseconds.
+     */
+    private long elapsedTime;
+
+    /**
+     * Whether search was stopped by its limits before it finished.
+     */
+    private boolean aborted;
+
+    /**
+     * Whether search was stopped because it exceeded its memory limit.
+     */
+    private boolean memoryExceeded;
+
+    /**
+     * Current bound of search: the smallest estimated total number of
+     * pushes (or moves, for IDA*) of expanded nodes.
+     */
+    private int bound;
+
+    /**
+     * Memory used on the heap in bytes.
+     */
+    private long heapMemory;
+
+    /**
+     * Memory used by search outside of the heap in bytes.
+     */
+    private long offHeapMemory;
+
+    /**
+     * The number of pruned pushes, indexed by DeadlockType ordinal.
+     */
+    private long[] prunes = new long[DeadlockType.values().length];
+
+    /**
+     * Returns the number of expanded nodes.
+     * @return the number of expanded nodes
+     */
+    public long getNodesCount() {
+        return nodesCount;
+    }
+
+    /**
+     * Sets the number of expanded nodes.
+     * @param nodesCount the number of expanded nodes
+     */
+    public void setNodesCount(long nodesCount) {
+        this.nodesCount = nodesCount;
+    }
+
+    /**
+     * Returns the number of nodes waiting for expansion when search finished.
+     * @return size of open set
+     */
+    public long getOpenSetSize() {
+        return openSetSize;
+    }
+
+    /**
+     * Sets the number of nodes waiting for expansion.
+     * @param openSetSize size of open set
+     */
+    public void setOpenSetSize(long openSetSize) {
+        this.openSetSize = openSetSize;
+    }
+
+    /**
+     * Returns the number of visited states when search finished.
+     * @return size of closed set
+     */
+    public long getClosedSetSize() {
+        return closedSetSize;
+    }
+
+    /**
+     * Sets the number of visited states.
+     * @param closedSetSize size of closed set
+     */
+    public void setClosedSetSize(long closedSetSize) {
+        this.closedSetSize = closedSetSize;
+    }
+
+    /**
+     * Returns duration of search in milliseconds.
+     * @return duration of search
+     */
+    public long getElapsedTime() {
+        return elapsedTime;
+    }
+
+    /**
+     * Sets duration of search in milliseconds.
+     * @param elapsedTime duration of search
+     */
+    public void setElapsedTime(long elapsedTime) {
+        this.elapsedTime = elapsedTime;
+    }
+
+    /**
+     * Returns the number of expanded nodes per second.
+     * @return average speed of search
+     */
+    public long getNodesPerSecond() {
+        return nodesCount * 1000 / Math.max(elapsedTime, 1);
+    }
+
+    /**
+     * Returns current bound of search.
+     * @return the smallest estimated total of expanded nodes
+     */
+    public int getBound() {
+        return bound;
+    }
+
+    /**
+     * Sets current bound of search.
+     * @param bound the smallest estimated total of expanded nodes
+     */
+    public void setBound(int bound) {
+        this.bound = bound;
+    }
+
+    /**
+     * Returns memory used on the heap.
+     * @return used heap in bytes
+     */
+    public long getHeapMemory() {
+        return heapMemory;
+    }
+
+    /**
+     * Sets memory used on the heap.
+     * @param heapMemory used heap in bytes
+     */
+    public void setHeapMemory(long heapMemory) {
+        this.heapMemory = heapMemory;
+    }
+
+    /**
+     * Returns memory used by search outside of the heap.
+     * @return used off-heap memory in bytes
+     */
+    public long getOffHeapMemory() {
+        return offHeapMemory;
+    }
+
+    /**
+     * Sets memory used by search outside of the heap.
+     * @param offHeapMemory used off-heap memory in bytes
+     */
+    public void setOffHeapMemory(long offHeapMemory) {
+        this.offHeapMemory = offHeapMemory;
+    }
+
+    /**
+     * Returns the number of pushes pruned because of given kind of deadlock.
+     * @param type kind of deadlock
+     * @return the number of pruned pushes
+     */
+    public long getPrunes(DeadlockType type) {
+        return prunes[type.ordinal()];
+    }
+
+    /**
+     * Counts push pruned because of given kind of deadlock.
+     * @param type kind of deadlock
+     */
+    public void addPrune(DeadlockType type) {
+        prunes[type.ordinal()]++;
+    }
+
+    /**
+     * Sets the number of pushes pruned because of given kind of deadlock.
+     * Used by solvers which count pruned pushes on many threads.
+     * @param type kind of deadlock
+     * @param count the number of pruned pushes
+     */
+    public void setPrunes(DeadlockType type, long count) {
+        prunes[type.ordinal()] = count;
+    }
+
+    /**
+     * Checks if search was stopped by its limits before it finished. Null
+     * result of such search doesn't mean that Level can't be solved.
+     * @return true if search was aborted; false otherwise
+     */
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    /**
+     * Sets whether search was stopped by its limits.
+     * @param aborted true if search was aborted; false otherwise
+     */
+    public void setAborted(boolean aborted) {
+        this.aborted = aborted;
+    }
+
+    /**
+     * Checks if search was stopped because it exceeded its memory limit.
+     * @return true if memory limit was exceeded; false otherwise
+     */
+    public boolean isMemoryExceeded() {
+        return memoryExceeded;
+    }
+
+    /**
+     * Sets whether search was stopped because of its memory limit.
+     * @param memoryExceeded true if memory limit was exceeded; false
+     * otherwise
+     */
+    public void setMemoryExceeded(boolean memoryExceeded) {
+        this.memoryExceeded = memoryExceeded;
+    }
+
+    /**
+     * Returns a string representation of these Statistics.
+     * @return a string representation of these Statistics
+     */
+    @Override
+    public String toString() {
+        return "Statistics(nodes: " + nodesCount + ", open: " + openSetSize + ", closed: " + closedSetSize + ", time: " + elapsedTime + " ms" + (aborted ? ", aborted" : "") + (memoryExceeded ? ", memory exceeded" : "") + ")";
+    }
+}
@@ -0,0 +1,119 @@
+package sokoban.solver;
+
+import java.util.Arrays;
+
+/**
+ * Hash table of fixed size mapping hashes of positions to the smallest cost
+ * with which they were reached. When two positions fall into the same slot,
+ * the newer one replaces the older, so the table never grows beyond its
+ * initial size.
+ *
+ * @author Ketom
+ */
+public class TranspositionTable {
+    /**
+     * Value returned by get() for positions which are not in the table.
+     */
+    public static final int NOT_FOUND = -1;
+
+    /**
+     * The number of bytes used by one slot.
+     */
+    private static final int SLOT_SIZE = Long.BYTES + Integer.BYTES;
+
+    /**
+     * Hashes of stored positions. Zero marks an empty slot.
+     */
+    private long[] keys;
+
+    /**
+     * Costs of stored positions.
+     */
+    private int[] costs;
+
+    /**
+     * The number of occupied slots.
+     */
+    private int size;
+
+    /**
+     * Constructs TranspositionTable using at most given number of bytes.
+     * @param bytes memory budget of the table in bytes
+     */
+    public TranspositionTable(long bytes) {
+        long slots = Long.highestOneBit(Math.max(bytes / SLOT_SIZE, 1));
+        slots = Math.min(slots, 1 << 30);
+        keys = new long[(int) slots];
+        costs = new int[(int) slots];
+    }
+
+    /**
+     * Returns the cost stored for position with given hash.
+     * @param key hash of position
+     * @return stored cost; NOT_FOUND if position is not in the table
+     */
+    public int get(long key) {
+        key = normalize(key);
+        int slot = slot(key);
+        return (keys[slot] == key) ? costs[slot] : NOT_FOUND;
+    }
+
+    /**
+     * Stores cost of position with given hash, replacing other position
+     * which may occupy the same slot.
+     * @param key hash of position
+     * @param cost cost of position
+     */
+    public void put(long key, int cost) {
+        key = normalize(key);
+        int slot = slot(key);
+        if(keys[slot] == 0) {
+            size++;
+        }
+        keys[slot] = key;
+        costs[slot] = cost;
+    }
+
+    /**
+     * Removes all positions from the table.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        size = 0;
+    }
+
+    /**
+     * Returns the number of occupied slots.
+     * @return the number of stored positions
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of slots.
+     * @return capacity of the table
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Returns slot for given hash.
+     * @param key hash of position
+     * @return index of slot
+     */
+    private int slot(long key) {
+        return (int) (key ^ (key >>> 32)) & (keys.length - 1);
+    }
+
+    /**
+     * Makes sure that hash of position is different from marker of empty
+     * slot.
+     * @param key hash of position
+     * @return hash different from zero
+     */
+    private static long normalize(long key) {
+        return (key == 0) ? 1 : key;
+    }
+}
@@ -0,0 +1,73 @@
+package sokoban.solver;
+
+import java.util.Random;
+
+/**
+ * Random keys used to compute Zobrist hashes of positions. Hash of position
+ * is XOR of keys of cells with boxes and key of cell with the player, so it
+ * can be updated incrementally after every move.
+ *
+ * @author Ketom
+ */
+public class Zobrist {
+    /**
+     * Seed of random generator, so hashes are the same in every run.
+     */
+    private static final long SEED = 0x5DEECE66DL;
+
+    /**
+     * Keys of cells with boxes.
+     */
+    private long[] boxKeys;
+
+    /**
+     * Keys of cells with the player.
+     */
+    private long[] playerKeys;
+
+    /**
+     * Constructs Zobrist keys for grid with given number of cells.
+     * @param cellsCount the number of cells
+     */
+    public Zobrist(int cellsCount) {
+        Random random = new Random(SEED);
+        boxKeys = new long[cellsCount];
+        playerKeys = new long[cellsCount];
+        for(int i = 0; i < cellsCount; i++) {
+            boxKeys[i] = random.nextLong();
+            playerKeys[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * Returns key of box in cell with given index.
+     * @param index index of cell
+     * @return key of box
+     */
+    public long getBoxKey(int index) {
+        return boxKeys[index];
+    }
+
+    /**
+     * Returns key of player in cell with given index.
+     * @param index index of cell
+     * @return key of player
+     */
+    public long getPlayerKey(int index) {
+        return playerKeys[index];
+    }
+
+    /**
+     * Computes hash of position with given boxes and player.
+     * @param boxes indexes of cells with boxes
+     * @param player index of cell with the player
+     * @return hash of position
+     */
+    public long hash(int[] boxes, int player) {
+        long hash = playerKeys[player];
+        for(int box : boxes) {
+            hash ^= boxKeys[box];
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,7 @@
+/**
+ * Package containing solvers, which search for solutions of Levels. Solvers
+ * work on compact states (positions of boxes and normalized position of the
+ * player) instead of game boards, so they don't depend on JavaFX.
+ */
+
+package sokoban.solver;
@@ -0,0 +1,68 @@
+package sokoban.tests;
+
+import org.junit.Test;
+import sokoban.domain.Direction;
+import sokoban.domain.Level;
+import sokoban.engine.Engine;
+import sokoban.engine.MoveResult;
+import sokoban.solver.AStarSolver;
+import sokoban.solver.Solution;
+
+import static org.junit.Assert.*;
+
+public class AStarSolverTest {
+    /**
+     * Replays moves of given Solution on given Level.
+     */
+    static Engine replay(Level level, Solution solution) {
+        Engine engine = new Engine(level);
+        for(char c : solution.getMoves().toCharArray()) {
+            Direction direction = Direction.values()["urdl".indexOf(Character.toLowerCase(c))];
+            MoveResult result = engine.movePlayer(direction);
+            assertNotEquals(MoveResult.BLOCKED, result);
+            assertEquals(Character.isUpperCase(c), result == MoveResult.PUSHED);
+        }
+        return engine;
+    }
+
+    @Test
+    public void exampleTest() {
+        Level level = Level.example();
+        AStarSolver solver = new AStarSolver();
+        Solution solution = solver.solve(level);
+
+        assertNotNull(solution);
+        Engine engine = replay(level, solution);
+        assertTrue(engine.isWinConditionFulfilled());
+        assertEquals(solution.getPushesCount(), engine.getBoxesMovesCount());
+        assertTrue(solver.getStatistics().getNodesCount() > 0);
+    }
+
+    @Test
+    public void optimalTest() {
+        Level level = Level.fromString(
+                "#######\n" +
+                "#     #\n" +
+                "# $ @ #\n" +
+                "#.    #\n" +
+                "#######");
+        Solution solution = new AStarSolver().solve(level);
+
+        assertNotNull(solution);
+        assertEquals(2, solution.getPushesCount());
+        assertTrue(replay(level, solution).isWinConditionFulfilled());
+    }
+
+    @Test
+    public void unsolvableTest() {
+        Level level = Level.fromString(
+                "#####\n" +
+                "#$  #\n" +
+                "# @.#\n" +
+                "#####");
+        AStarSolver solver = new AStarSolver();
+
+        assertNull(solver.solve(level));
+        assertEquals(0, solver.getStatistics().getOpenSetSize());
+    }
+}
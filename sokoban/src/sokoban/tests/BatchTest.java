@@ -0,0 +1,106 @@
+package sokoban.tests;
+
+import org.junit.Test;
+import sokoban.Batch;
+import sokoban.domain.Level;
+import sokoban.domain.LevelCollection;
+import sokoban.solver.AStarSolver;
+import sokoban.solver.BidirectionalSolver;
+import sokoban.solver.ParallelSolver;
+import sokoban.solver.Solver;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BatchTest {
+    private static final String COLLECTION =
+            "; example collection\n" +
+            "#######\n" +
+            "#     #\n" +
+            "# $ @ #\n" +
+            "#.    #\n" +
+            "#######\n" +
+            "Title: Easy\n" +
+            "\n" +
+            "#####\n" +
+            "#$  #\n" +
+            "# @.#\n" +
+            "#####\n";
+
+    @Test
+    public void csvTest() throws IOException {
+        Batch batch = new Batch();
+        batch.setThreads(2);
+        StringWriter out = new StringWriter();
+        batch.run(LevelCollection.fromString(COLLECTION), out);
+
+        List<String> lines = Arrays.asList(out.toString().split("\n"));
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0).startsWith("level,status"));
+        assertTrue(lines.stream().anyMatch(line -> line.startsWith("1,solved,2,")));
+        assertTrue(lines.stream().anyMatch(line -> line.startsWith("2,unsolvable,-1,-1,")));
+    }
+
+    @Test
+    public void jsonTest() throws IOException {
+        Batch batch = new Batch();
+        batch.setFormat(Batch.Format.JSON);
+        batch.setSolverName("bidirectional");
+        StringWriter out = new StringWriter();
+        batch.run(LevelCollection.fromString(COLLECTION), out);
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(2, lines.length);
+        for(String line : lines) {
+            assertTrue(line.startsWith("{\"level\":"));
+            assertTrue(line.endsWith("\"}"));
+        }
+    }
+
+    @Test
+    public void memoryTest() throws IOException {
+        Batch batch = new Batch();
+        batch.setMemoryLimit(1);
+        StringWriter out = new StringWriter();
+        batch.run(LevelCollection.fromString(COLLECTION), out);
+
+        List<String> lines = Arrays.asList(out.toString().split("\n"));
+        assertTrue(lines.stream().anyMatch(line -> line.startsWith("1,memory,-1,-1,")));
+        assertTrue(lines.stream().anyMatch(line -> line.startsWith("2,unsolvable,-1,-1,")));
+
+        Level level = Level.fromString(
+                "#######\n" +
+                "#     #\n" +
+                "# $$@ #\n" +
+                "#..   #\n" +
+                "#######");
+        for(Solver solver : new Solver[] {new BidirectionalSolver(), new ParallelSolver(2)}) {
+            solver.setMemoryLimit(1);
+            assertNull(solver.solve(level));
+            assertTrue(solver.getStatistics().isAborted());
+            assertTrue(solver.getStatistics().isMemoryExceeded());
+        }
+    }
+
+    @Test
+    public void limitTest() {
+        Level level = Level.fromString(
+                "#######\n" +
+                "#     #\n" +
+                "# $$@ #\n" +
+                "#..   #\n" +
+                "#######");
+        Solver solver = new AStarSolver();
+        solver.setNodesLimit(1);
+        assertNull(solver.solve(level));
+        assertTrue(solver.getStatistics().isAborted());
+
+        solver.setNodesLimit(0);
+        assertNotNull(solver.solve(level));
+        assertFalse(solver.getStatistics().isAborted());
+    }
+}
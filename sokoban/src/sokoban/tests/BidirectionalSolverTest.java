@@ -0,0 +1,48 @@
+package sokoban.tests;
+
+import org.junit.Test;
+import sokoban.domain.Level;
+import sokoban.engine.Engine;
+import sokoban.solver.AStarSolver;
+import sokoban.solver.BidirectionalSolver;
+import sokoban.solver.Solution;
+
+import static org.junit.Assert.*;
+
+public class BidirectionalSolverTest {
+    @Test
+    public void exampleTest() {
+        Level level = Level.example();
+        Solution solution = new BidirectionalSolver().solve(level);
+
+        assertNotNull(solution);
+        Engine engine = AStarSolverTest.replay(level, solution);
+        assertTrue(engine.isWinConditionFulfilled());
+        assertEquals(new AStarSolver().solve(level).getPushesCount(), solution.getPushesCount());
+    }
+
+    @Test
+    public void simpleTest() {
+        Level level = Level.fromString(
+                "######\n" +
+                "#@$ .#\n" +
+                "#  * #\n" +
+                "######");
+        Solution solution = new BidirectionalSolver().solve(level);
+
+        assertNotNull(solution);
+        assertEquals(2, solution.getPushesCount());
+        assertTrue(AStarSolverTest.replay(level, solution).isWinConditionFulfilled());
+    }
+
+    @Test
+    public void unsolvableTest() {
+        Level level = Level.fromString(
+                "#####\n" +
+                "#$  #\n" +
+                "# @.#\n" +
+                "#####");
+
+        assertNull(new BidirectionalSolver().solve(level));
+    }
+}
@@ -0,0 +1,39 @@
+package sokoban.tests;
+
+import org.junit.Test;
+import sokoban.domain.Level;
+import sokoban.engine.DeadSquares;
+import sokoban.engine.Engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class DeadSquaresTest {
+    @Test
+    public void deadTest() {
+        Level level = Level.fromString(
+                "######\n" +
+                "#    #\n" +
+                "# $. #\n" +
+                "#@   #\n" +
+                "######");
+        Engine engine = new Engine(level);
+        DeadSquares deadSquares = DeadSquares.of(level);
+
+        assertEquals(true, deadSquares.isDead(engine.getIndex(1, 1)));
+        assertEquals(true, deadSquares.isDead(engine.getIndex(4, 3)));
+        assertEquals(true, deadSquares.isDead(engine.getIndex(1, 2)));
+        assertEquals(false, deadSquares.isDead(engine.getIndex(2, 2)));
+        assertEquals(false, deadSquares.isDead(engine.getIndex(3, 2)));
+        assertEquals(true, deadSquares.isDead(engine.getIndex(2, 1)));
+        assertEquals(10, deadSquares.getDeadCount());
+    }
+
+    @Test
+    public void cacheTest() {
+        Level level = Level.example();
+
+        assertSame(DeadSquares.of(level), DeadSquares.of(level));
+        assertSame(DeadSquares.of(level), new Engine(level).getDeadSquares());
+    }
+}
@@ -0,0 +1,64 @@
+package sokoban.tests;
+
+import org.junit.Test;
+import sokoban.domain.Level;
+import sokoban.engine.Engine;
+import sokoban.solver.DeadlockPatterns;
+import sokoban.solver.Problem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+
+public class DeadlockPatternsTest {
+    @Test
+    public void learnTest() throws IOException {
+        Level level = Level.fromString(
+                "########\n" +
+                "#.@ $$.#\n" +
+                "########");
+        Engine engine = new Engine(level);
+        Problem problem = new Problem(level);
+        int[] boxes = {engine.getIndex(4, 1), engine.getIndex(5, 1)};
+        int player = engine.getIndex(3, 1);
+
+        DeadlockPatterns patterns = new DeadlockPatterns(problem);
+        assertEquals(false, patterns.matches(boxes, player, boxes[0]));
+        assertEquals(true, patterns.learn(boxes, player, boxes[0]));
+        assertEquals(true, patterns.matches(boxes, player, boxes[0]));
+        assertEquals(true, patterns.matches(boxes, engine.getIndex(1, 1), boxes[1]));
+        assertEquals(false, patterns.matches(boxes, engine.getIndex(6, 1), boxes[1]));
+
+        File directory = Files.createTempDirectory("patterns").toFile();
+        try {
+            patterns.save(directory);
+            DeadlockPatterns loaded = new DeadlockPatterns(problem);
+            loaded.load(directory);
+            assertEquals(1, loaded.size());
+            assertEquals(true, loaded.matches(boxes, player, boxes[1]));
+        } finally {
+            patterns.getFile(directory).delete();
+            directory.delete();
+        }
+    }
+
+    @Test
+    public void solvableTest() {
+        Level level = Level.fromString(
+                "########\n" +
+                "#      #\n" +
+                "#      #\n" +
+                "#. @$$.#\n" +
+                "#      #\n" +
+                "#      #\n" +
+                "########");
+        Engine engine = new Engine(level);
+        int[] boxes = {engine.getIndex(4, 3), engine.getIndex(5, 3)};
+
+        DeadlockPatterns patterns = new DeadlockPatterns(new Problem(level));
+        assertEquals(false, patterns.learn(boxes, engine.getIndex(3, 3), boxes[0]));
+        assertEquals(0, patterns.size());
+    }
+}
@@ -0,0 +1,88 @@
+package sokoban.tests;
+
+import org.junit.Test;
+import sokoban.domain.Direction;
+import sokoban.domain.Level;
+import sokoban.engine.Engine;
+import sokoban.engine.MoveResult;
+import sokoban.engine.Reachability;
+
+import static org.junit.Assert.assertEquals;
+
+public class EngineTest {
+    @Test
+    public void basicTest() {
+        Level level = Level.example();
+        Engine engine = new Engine(level);
+
+        assertEquals(level.getWidth(), engine.getWidth());
+        assertEquals(level.getHeight(), engine.getHeight());
+        assertEquals(5, engine.getBoxesCount());
+        assertEquals(5, engine.getSpotsCount());
+        assertEquals(2, engine.getX(engine.getPlayerIndex()));
+        assertEquals(1, engine.getY(engine.getPlayerIndex()));
+
+        Level levelFromEngine = engine.toLevel();
+        for(int y = 0; y < level.getHeight(); y++) {
+            for (int x = 0; x < level.getWidth(); x++) {
+                assertEquals(level.get(x, y), levelFromEngine.get(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void moveTest() {
+        Engine engine = new Engine(Level.fromString(
+                "#####\n" +
+                "#@$.#\n" +
+                "#####"));
+
+        assertEquals(false, engine.isWinConditionFulfilled());
+        assertEquals(MoveResult.BLOCKED, engine.movePlayer(Direction.UP));
+        assertEquals(MoveResult.BLOCKED, engine.movePlayer(Direction.LEFT));
+        assertEquals(0, engine.getPlayerMovesCount());
+
+        assertEquals(MoveResult.PUSHED, engine.movePlayer(Direction.RIGHT));
+        assertEquals(1, engine.getPlayerMovesCount());
+        assertEquals(1, engine.getBoxesMovesCount());
+        assertEquals(true, engine.isWinConditionFulfilled());
+
+        assertEquals(MoveResult.BLOCKED, engine.movePlayer(Direction.RIGHT));
+        assertEquals(MoveResult.MOVED, engine.movePlayer(Direction.LEFT));
+        assertEquals(2, engine.getPlayerMovesCount());
+        assertEquals(1, engine.getBoxesMovesCount());
+    }
+
+    @Test
+    public void boundsTest() {
+        Engine engine = new Engine(Level.fromString("@ "));
+
+        assertEquals(MoveResult.BLOCKED, engine.movePlayer(Direction.LEFT));
+        assertEquals(MoveResult.BLOCKED, engine.movePlayer(Direction.UP));
+        assertEquals(MoveResult.MOVED, engine.movePlayer(Direction.RIGHT));
+        assertEquals(MoveResult.BLOCKED, engine.movePlayer(Direction.RIGHT));
+        assertEquals(true, engine.isWinConditionFulfilled());
+    }
+
+    @Test
+    public void reachabilityTest() {
+        Engine engine = new Engine(Level.fromString(
+                "######\n" +
+                "#  # #\n" +
+                "# $@ #\n" +
+                "#### #\n" +
+                "######"));
+
+        Reachability reachability = engine.getReachability();
+        assertEquals(engine.getIndex(4, 1), reachability.getTopLeft());
+        assertEquals(4, reachability.getCount());
+        assertEquals(true, reachability.isReachable(engine.getIndex(4, 3)));
+        assertEquals(false, reachability.isReachable(engine.getIndex(1, 1)));
+
+        assertEquals(MoveResult.PUSHED, engine.movePlayer(Direction.LEFT));
+        reachability = engine.getReachability();
+        assertEquals(engine.getIndex(1, 1), reachability.getTopLeft());
+        assertEquals(true, reachability.isReachable(engine.getIndex(2, 1)));
+        assertEquals(false, reachability.isReachable(engine.getIndex(1, 2)));
+    }
+}
@@ -0,0 +1,58 @@
+package sokoban.tests;
+
+import org.junit.Test;
+import sokoban.domain.Direction;
+import sokoban.domain.Level;
+import sokoban.engine.Engine;
+import sokoban.engine.MoveResult;
+
+import static org.junit.Assert.assertEquals;
+
+public class FreezeDeadlockTest {
+    @Test
+    public void freezeTest() {
+        Engine engine = new Engine(Level.fromString(
+                "########\n" +
+                "#      #\n" +
+                "# $$   #\n" +
+                "# $ $@ #\n" +
+                "#  ..  #\n" +
+                "#  ..  #\n" +
+                "########"));
+
+        assertEquals(false, engine.isDeadlocked());
+        assertEquals(false, engine.isDeadSquare(engine.getIndex(4, 4)));
+        assertEquals(MoveResult.PUSHED, engine.movePlayer(Direction.LEFT));
+        assertEquals(true, engine.isDeadlocked());
+        assertEquals(4, engine.getDeadlockedBoxes().length);
+    }
+
+    @Test
+    public void spotsTest() {
+        Engine engine = new Engine(Level.fromString(
+                "######\n" +
+                "#*   #\n" +
+                "#. $@#\n" +
+                "######"));
+
+        assertEquals(MoveResult.PUSHED, engine.movePlayer(Direction.LEFT));
+        assertEquals(false, engine.isDeadlocked());
+        assertEquals(MoveResult.PUSHED, engine.movePlayer(Direction.LEFT));
+        assertEquals(false, engine.isDeadlocked());
+        assertEquals(true, engine.isWinConditionFulfilled());
+    }
+
+    @Test
+    public void deadSquareTest() {
+        Engine engine = new Engine(Level.fromString(
+                "#####\n" +
+                "#*  #\n" +
+                "#  $#\n" +
+                "# .@#\n" +
+                "#####"));
+
+        assertEquals(MoveResult.PUSHED, engine.movePlayer(Direction.UP));
+        assertEquals(true, engine.isDeadlocked());
+        assertEquals(engine.getIndex(3, 1), engine.getDeadlockedBoxes()[0]);
+    }
+}
@@ -0,0 +1,92 @@
+package sokoban.tests;
+
+import org.junit.Test;
+import sokoban.domain.Direction;
+import sokoban.domain.Level;
+import sokoban.engine.Engine;
+import sokoban.solver.HintService;
+
+import static org.junit.Assert.*;
+
+public class HintServiceTest {
+    @Test
+    public void followTest() {
+        Engine engine = new Engine(Level.example());
+        HintService service = new HintService();
+
+        for(int i = 0; i < 100 && !engine.isWinConditionFulfilled(); i++) {
+            String hint = service.findHint(engine);
+            assertNotNull(hint);
+            assertTrue(Character.isUpperCase(hint.charAt(hint.length() - 1)));
+            for(char c : hint.toCharArray()) {
+                engine.movePlayer(Direction.values()["urdl".indexOf(Character.toLowerCase(c))]);
+            }
+        }
+        assertTrue(engine.isWinConditionFulfilled());
+        assertEquals("", service.findHint(engine));
+        assertEquals(1, service.getSearchesCount());
+    }
+
+    @Test
+    public void deviationTest() {
+        Engine engine = new Engine(Level.fromString(
+                "#######\n" +
+                "#     #\n" +
+                "# $ @ #\n" +
+                "#     #\n" +
+                "#.    #\n" +
+                "#######"));
+        HintService service = new HintService();
+
+        assertNotNull(service.findHint(engine));
+        engine.movePlayer(Direction.DOWN);
+        assertNotNull(service.findHint(engine));
+        assertEquals(1, service.getSearchesCount());
+
+        for(char c : "uullldR".toCharArray()) {
+            engine.movePlayer(Direction.values()["urdl".indexOf(Character.toLowerCase(c))]);
+        }
+        assertNotNull(service.findHint(engine));
+        assertEquals(2, service.getSearchesCount());
+    }
+
+    @Test
+    public void rejoinTest() {
+        Engine engine = new Engine(Level.fromString(
+                "#######\n" +
+                "#     #\n" +
+                "# $ @ #\n" +
+                "#     #\n" +
+                "#.    #\n" +
+                "#######"));
+        HintService service = new HintService();
+        assertNotNull(service.findHint(engine));
+
+        for(char c : "uullldR".toCharArray()) {
+            engine.movePlayer(Direction.values()["urdl".indexOf(Character.toLowerCase(c))]);
+        }
+        for(int i = 0; i < 100 && !engine.isWinConditionFulfilled(); i++) {
+            String hint = service.findHint(engine);
+            assertNotNull(hint);
+            long startTime = System.nanoTime();
+            assertEquals(hint, service.findHint(engine));
+            // remembered hints must take less than 100 ms
+            assertTrue(System.nanoTime() - startTime < 100_000_000L);
+            for(char c : hint.toCharArray()) {
+                engine.movePlayer(Direction.values()["urdl".indexOf(Character.toLowerCase(c))]);
+            }
+        }
+        assertTrue(engine.isWinConditionFulfilled());
+        assertEquals(2, service.getSearchesCount());
+    }
+
+    @Test
+    public void unsolvableTest() {
+        Engine engine = new Engine(Level.fromString(
+                "#####\n" +
+                "#$  #\n" +
+                "# @.#\n" +
+                "#####"));
+        assertNull(new HintService().findHint(engine));
+    }
+}
@@ -0,0 +1,37 @@
+package sokoban.tests;
+
+import org.junit.Test;
+import sokoban.domain.Level;
+import sokoban.solver.AStarSolver;
+import sokoban.solver.IdaStarSolver;
+import sokoban.solver.Solution;
+
+import static org.junit.Assert.*;
+
+public class IdaStarSolverTest {
+    @Test
+    public void optimalTest() {
+        Level level = Level.fromString(
+                "#######\n" +
+                "#     #\n" +
+                "# $ @ #\n" +
+                "#.    #\n" +
+                "#######");
+        Solution solution = new IdaStarSolver().solve(level);
+
+        assertNotNull(solution);
+        assertEquals(5, solution.getMovesCount());
+        assertTrue(AStarSolverTest.replay(level, solution).isWinConditionFulfilled());
+    }
+
+    @Test
+    public void exampleTest() {
+        Level level = Level.example();
+        Solution solution = new IdaStarSolver(1 << 20).solve(level);
+        Solution pushOptimal = new AStarSolver().solve(level);
+
+        assertNotNull(solution);
+        assertTrue(AStarSolverTest.replay(level, solution).isWinConditionFulfilled());
+        assertTrue(solution.getMovesCount() <= pushOptimal.getMovesCount());
+    }
+}
@@ -0,0 +1,159 @@
+package sokoban.tests;
+
+import org.junit.Test;
+import sokoban.domain.Level;
+import sokoban.domain.LevelCollection;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LevelCollectionTest {
+    private static final String COLLECTION =
+            "; Example pack\r\n" +
+            "\r\n" +
+            "; first\r\n" +
+            "#####\r\n" +
+            "#@$.#\r\n" +
+            "#####\r\n" +
+            "Title: Corridor\r\n" +
+            "Author: Ketom\r\n" +
+            "\r\n" +
+            "; second\r\n" +
+            "  ####\n" +
+            "###@ #\n" +
+            "# $. #\n" +
+            "######\n" +
+            "\n" +
+            "######\n" +
+            "#@$ .#\n" +
+            "######";
+
+    @Test
+    public void indexTest() {
+        LevelCollection collection = LevelCollection.fromString(COLLECTION);
+        assertEquals(3, collection.size());
+        assertEquals("Corridor", collection.getTitle(0));
+        assertEquals("second", collection.getTitle(1));
+        assertNull(collection.getTitle(2));
+    }
+
+    @Test
+    public void getTest() {
+        LevelCollection collection = LevelCollection.fromString(COLLECTION);
+        Level level = collection.get(1);
+        assertEquals(6, level.getWidth());
+        assertEquals(4, level.getHeight());
+        assertEquals(Level.PLAYER, level.get(3, 1));
+        assertEquals(Level.BOX, level.get(2, 2));
+
+        level = collection.get(0);
+        assertEquals(5, level.getWidth());
+        assertEquals(3, level.getHeight());
+
+        level = collection.get(2);
+        assertEquals(6, level.getWidth());
+        assertEquals(Level.SPOT, level.get(4, 1));
+    }
+
+    @Test
+    public void recordTest() {
+        LevelCollection collection = LevelCollection.fromString(COLLECTION);
+        for(int i = 0; i < collection.size(); i++) {
+            Level level = collection.get(i);
+            assertEquals(level.getWidth(), collection.getWidth(i));
+            assertEquals(level.getHeight(), collection.getHeight(i));
+            assertEquals(1, collection.getBoxesCount(i));
+        }
+        LevelCollection unix = LevelCollection.fromString(COLLECTION.replace("\r", ""));
+        assertEquals(collection.getHash(0), unix.getHash(0));
+        assertNotEquals(collection.getHash(0), collection.getHash(1));
+    }
+
+    @Test
+    public void indexFileTest() throws IOException {
+        File file = File.createTempFile("pack", ".txt");
+        File indexFile = LevelCollection.getIndexFile(file);
+        try {
+            Files.write(file.toPath(), COLLECTION.getBytes(StandardCharsets.ISO_8859_1));
+            LevelCollection scanned = LevelCollection.open(file);
+            assertTrue(indexFile.isFile());
+            assertEquals(3, scanned.size());
+
+            LevelCollection indexed = LevelCollection.open(file);
+            assertEquals(3, indexed.size());
+            for(int i = 0; i < indexed.size(); i++) {
+                assertEquals(scanned.getOffset(i), indexed.getOffset(i));
+                assertEquals(scanned.getHash(i), indexed.getHash(i));
+                assertEquals(scanned.getTitle(i), indexed.getTitle(i));
+            }
+            assertEquals(Level.PLAYER, indexed.get(1).get(3, 1));
+
+            Files.write(file.toPath(), "#####\n#@$.#\n#####\n".getBytes(StandardCharsets.ISO_8859_1));
+            assertEquals(1, LevelCollection.open(file).size());
+        } finally {
+            indexFile.delete();
+            file.delete();
+        }
+    }
+
+    @Test
+    public void staleIndexTest() throws IOException {
+        File file = File.createTempFile("pack", ".txt");
+        File indexFile = LevelCollection.getIndexFile(file);
+        try {
+            Files.write(file.toPath(), COLLECTION.getBytes(StandardCharsets.ISO_8859_1));
+            long modified = file.lastModified();
+            assertEquals(Level.PLAYER, LevelCollection.open(file).get(2).get(1, 1));
+
+            String edited = COLLECTION.replace("#@$ .#", "# $@.#");
+            Files.write(file.toPath(), edited.getBytes(StandardCharsets.ISO_8859_1));
+            assertTrue(file.setLastModified(modified));
+            LevelCollection collection = LevelCollection.open(file);
+            assertEquals(Level.PLAYER, collection.get(2).get(3, 1));
+            assertEquals(LevelCollection.fromString(edited).getHash(2), collection.getHash(2));
+            assertEquals(LevelCollection.fromString(edited).getHash(2), LevelCollection.open(file).getHash(2));
+        } finally {
+            indexFile.delete();
+            file.delete();
+        }
+    }
+
+    @Test
+    public void mappedIndexTest() throws IOException {
+        File file = File.createTempFile("pack", ".txt");
+        File indexFile = LevelCollection.getIndexFile(file);
+        try {
+            Files.write(file.toPath(), COLLECTION.getBytes(StandardCharsets.ISO_8859_1));
+            LevelCollection.open(file);
+            LevelCollection indexed = LevelCollection.open(file);
+            indexed.writeIndex(indexFile, file);
+
+            assertEquals(3, indexed.size());
+            assertEquals("second", indexed.getTitle(1));
+            LevelCollection reopened = LevelCollection.open(file);
+            assertEquals(3, reopened.size());
+            assertEquals(indexed.getHash(2), reopened.getHash(2));
+        } finally {
+            indexFile.delete();
+            file.delete();
+        }
+    }
+
+    @Test
+    public void outOfBoundsTest() {
+        try {
+            LevelCollection.fromString(COLLECTION).get(3);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package sokoban.tests;
+
+import org.junit.Test;
+import sokoban.domain.Level;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LevelTest {
+    @Test
+    public void parseTest() {
+        Level level = Level.fromString("#####\r\n#@x$.#\n###\n");
+        assertEquals(6, level.getWidth());
+        assertEquals(3, level.getHeight());
+        assertEquals(Level.PLAYER, level.get(1, 1));
+        assertEquals(Level.TILE, level.get(2, 1));
+        assertEquals(Level.WALL, level.get(5, 1));
+        assertEquals(0, level.get(5, 0));
+        assertEquals(0, level.get(3, 2));
+    }
+
+    @Test
+    public void rangeTest() {
+        byte[] bytes = "junk\n#####\n#@$.#\n#####\nmore".getBytes(StandardCharsets.US_ASCII);
+        Level level = Level.fromBytes(bytes, 5, 18);
+        assertEquals(5, level.getWidth());
+        assertEquals(3, level.getHeight());
+        assertEquals(Level.BOX, level.get(2, 1));
+    }
+
+    @Test
+    public void bufferTest() {
+        byte[] bytes = "#######\n#.@ # #\n#$* $ #\n#   $ #\n# ..  #\n#  *  #\n#######".getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length + 2);
+        buffer.put((byte) 'x').put((byte) '\n').put(bytes);
+        ((Buffer) buffer).position(2);
+        Level level = Level.fromBuffer(buffer);
+        assertEquals(2, buffer.position());
+
+        Level example = Level.example();
+        assertEquals(example.getWidth(), level.getWidth());
+        assertEquals(example.getHeight(), level.getHeight());
+        for(int y = 0; y < level.getHeight(); y++) {
+            for(int x = 0; x < level.getWidth(); x++) {
+                assertEquals(example.get(x, y), level.get(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void binaryTest() {
+        Level level = Level.example();
+        byte[] binary = level.toBinary();
+        assertTrue(Level.isBinary(binary));
+        assertEquals(16 + (7 * 7 * 3 + 7) / 8, binary.length);
+
+        Level loaded = Level.fromBinary(binary);
+        assertEquals(level.getHash(), loaded.getHash());
+        assertEquals(level.getWidth(), loaded.getWidth());
+        for(int y = 0; y < level.getHeight(); y++) {
+            for(int x = 0; x < level.getWidth(); x++) {
+                assertEquals(level.get(x, y), loaded.get(x, y));
+            }
+        }
+
+        binary[20] ^= 1;
+        try {
+            Level.fromBinary(binary);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // hash doesn't match
+        }
+    }
+
+    @Test
+    public void forgedBinaryTest() {
+        int[][] sizes = {{0xFFFF, 0xFFFF}, {30000, 30000}, {0xFFFF, 1}};
+        for(int[] size : sizes) {
+            ByteBuffer forged = ByteBuffer.wrap(Level.example().toBinary());
+            forged.putShort(4, (short) size[0]);
+            forged.putShort(6, (short) size[1]);
+            try {
+                Level.fromBinary(forged, 0);
+                fail();
+            } catch (IllegalArgumentException e) {
+                // header claims more cells than there are bytes
+            }
+        }
+    }
+
+    @Test
+    public void trimTest() {
+        Level level = Level.fromString(
+                "          \n" +
+                "   ####   \n" +
+                "  ##  ### \n" +
+                "  #@$  .# \n" +
+                "  ####### \n" +
+                "          \n");
+        Level trimmed = level.trim();
+        assertEquals(7, trimmed.getWidth());
+        assertEquals(4, trimmed.getHeight());
+        assertEquals(0, trimmed.get(0, 0));
+        assertEquals(Level.WALL, trimmed.get(1, 0));
+        assertEquals(Level.TILE, trimmed.get(2, 1));
+        assertEquals(Level.PLAYER, trimmed.get(1, 2));
+        assertEquals(0, trimmed.get(6, 0));
+
+        Level loaded = Level.fromBinary(trimmed.toBinary());
+        assertEquals(trimmed.getHash(), loaded.getHash());
+        assertEquals(0, loaded.get(6, 0));
+    }
+
+    @Test
+    public void rleTest() {
+        Level level = Level.fromRle("2-4#|2-#@-#|3#$-#|#.2_2#|4#");
+        assertEquals(6, level.getWidth());
+        assertEquals(5, level.getHeight());
+        assertEquals(Level.TILE, level.get(0, 0));
+        assertEquals(Level.WALL, level.get(5, 0));
+        assertEquals(Level.PLAYER, level.get(3, 1));
+        assertEquals(Level.BOX, level.get(3, 2));
+        assertEquals(Level.SPOT, level.get(1, 3));
+        assertEquals(Level.TILE, level.get(3, 3));
+        assertEquals(0, level.get(5, 4));
+
+        Level example = Level.example();
+        assertEquals("7#|#.@-#-#|#$*-$-#|#3-$-#|#-2.2-#|#2-*2-#|7#", example.toRle());
+        assertEquals(example.getHash(), Level.fromRle(example.toRle()).getHash());
+
+        Level empty = new Level(3, 3);
+        assertEquals("||3-", empty.toRle());
+        Level decoded = Level.fromRle(empty.toRle());
+        assertEquals(3, decoded.getWidth());
+        assertEquals(3, decoded.getHeight());
+        assertEquals(empty.toRle(), decoded.toRle());
+
+        Level open = Level.fromString("####  \n#@$. \n####  \n      ");
+        decoded = Level.fromRle(open.toRle());
+        assertEquals(open.getWidth(), decoded.getWidth());
+        assertEquals(open.getHeight(), decoded.getHeight());
+        assertEquals(Level.BOX, decoded.get(2, 1));
+        assertEquals(open.toRle(), decoded.toRle());
+    }
+
+    @Test
+    public void rleLettersTest() {
+        Level level = Level.fromRle("6#|#pb.B#|#P3-#|6#");
+        assertEquals(Level.PLAYER, level.get(1, 1));
+        assertEquals(Level.BOX, level.get(2, 1));
+        assertEquals(Level.BOX_ON_SPOT, level.get(4, 1));
+        assertEquals(Level.PLAYER_ON_SPOT, level.get(1, 2));
+
+        Level grouped = Level.fromRle("5#|2(#-)#|#@$.#|5#");
+        assertEquals(Level.fromRle("5#|#-#-#|#@$.#|5#").getHash(), grouped.getHash());
+        assertEquals("8#", Level.fromRle("2(2(2#))").toRle());
+
+        for(String invalid : new String[]{"5#|#@$x#|5#", "2(#-|#", "#-)#", "%23"}) {
+            try {
+                Level.fromRle(invalid);
+                fail(invalid);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package sokoban.tests;
+
+import org.junit.Test;
+import sokoban.domain.Level;
+import sokoban.engine.Engine;
+import sokoban.solver.AStarSolver;
+import sokoban.solver.Macros;
+import sokoban.solver.Node;
+import sokoban.solver.Position;
+import sokoban.solver.Problem;
+import sokoban.solver.Solution;
+
+import static org.junit.Assert.*;
+
+public class MacrosTest {
+    private static final String LEVEL =
+            "    #####\n" +
+            "    #   #\n" +
+            "    #$  #\n" +
+            "  ###  $##\n" +
+            "  #  $ $ #\n" +
+            "### # ## #   ######\n" +
+            "#   # ## #####  ..#\n" +
+            "# $  $          ..#\n" +
+            "##### ### #@##  ..#\n" +
+            "    #     #########\n" +
+            "    #######";
+
+    @Test
+    public void tunnelTest() {
+        Level level = Level.fromString("#######\n#@$  .#\n#######");
+        Engine engine = new Engine(level);
+        Problem problem = new Problem(level);
+        Macros macros = new Macros(problem);
+        int box = engine.getIndex(2, 1);
+
+        int[] pushes = macros.find(new Position(problem), box, 1);
+        assertNotNull(pushes);
+        assertEquals(3, pushes.length);
+        assertEquals(Node.encodePush(box, 1), pushes[0]);
+        assertEquals(Node.encodePush(engine.getIndex(4, 1), 1), pushes[2]);
+    }
+
+    @Test
+    public void goalRoomTest() {
+        Macros macros = new Macros(new Problem(Level.fromString(LEVEL)));
+
+        assertTrue(macros.hasGoalRoom());
+        assertEquals(6, macros.getSlots().length);
+        assertFalse(new Macros(new Problem(Level.example())).hasGoalRoom());
+    }
+
+    @Test
+    public void solveTest() {
+        Level level = Level.fromString(LEVEL);
+        AStarSolver solver = new AStarSolver();
+        solver.setMacroMoves(true);
+        Solution solution = solver.solve(level);
+
+        assertNotNull(solution);
+        Engine engine = AStarSolverTest.replay(level, solution);
+        assertTrue(engine.isWinConditionFulfilled());
+        assertEquals(solution.getPushesCount(), engine.getBoxesMovesCount());
+    }
+}
@@ -0,0 +1,59 @@
+package sokoban.tests;
+
+import org.junit.Test;
+import sokoban.domain.Level;
+import sokoban.engine.Engine;
+import sokoban.solver.MatchingHeuristic;
+import sokoban.solver.Problem;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class MatchingHeuristicTest {
+    @Test
+    public void assignmentTest() {
+        Level level = Level.fromString(
+                "########\n" +
+                "#      #\n" +
+                "# $$ ..#\n" +
+                "# @    #\n" +
+                "########");
+        Engine engine = new Engine(level);
+        MatchingHeuristic heuristic = new MatchingHeuristic(new Problem(level));
+
+        assertEquals(6, heuristic.estimate(new int[]{engine.getIndex(2, 2), engine.getIndex(3, 2)}));
+        assertEquals(MatchingHeuristic.DEADLOCK, heuristic.estimateAfterMove(0, engine.getIndex(1, 1)));
+        assertEquals(4, heuristic.estimateAfterMove(0, engine.getIndex(4, 2)));
+    }
+
+    @Test
+    public void incrementalTest() {
+        Level level = Level.fromString(
+                "#########\n" +
+                "#       #\n" +
+                "# $ $ . #\n" +
+                "#  $@ . #\n" +
+                "# $   ..#\n" +
+                "#       #\n" +
+                "#########");
+        Engine engine = new Engine(level);
+        Problem problem = new Problem(level);
+        MatchingHeuristic heuristic = new MatchingHeuristic(problem);
+        MatchingHeuristic fresh = new MatchingHeuristic(problem);
+        Random random = new Random(42);
+
+        for(int i = 0; i < 1000; i++) {
+            int[] boxes = new int[problem.getBoxesCount()];
+            for(int j = 0; j < boxes.length; j++) {
+                boxes[j] = engine.getIndex(random.nextInt(engine.getWidth()), random.nextInt(engine.getHeight()));
+            }
+            heuristic.estimate(boxes);
+            int box = random.nextInt(boxes.length);
+            int target = engine.getIndex(random.nextInt(engine.getWidth()), random.nextInt(engine.getHeight()));
+            int estimate = heuristic.estimateAfterMove(box, target);
+            boxes[box] = target;
+            assertEquals(fresh.estimate(boxes), estimate);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package sokoban.tests;
+
+import org.junit.Test;
+import sokoban.domain.Direction;
+import sokoban.domain.Level;
+import sokoban.engine.Engine;
+import sokoban.engine.FloorMap;
+import sokoban.engine.PackedState;
+
+import static org.junit.Assert.*;
+
+public class PackedStateTest {
+    @Test
+    public void floorTest() {
+        Engine engine = new Engine(Level.fromString(
+                "  #####\n" +
+                "###   #\n" +
+                "#.@$  #\n" +
+                "#######"));
+        FloorMap floorMap = engine.getFloorMap();
+
+        assertEquals(8, floorMap.getFloorsCount());
+        assertEquals(-1, floorMap.toFloor(engine.getIndex(0, 0)));
+        assertEquals(-1, floorMap.toFloor(engine.getIndex(2, 0)));
+        assertEquals(0, floorMap.toFloor(engine.getIndex(3, 1)));
+        assertEquals(engine.getIndex(1, 2), floorMap.toCell(floorMap.toFloor(engine.getIndex(1, 2))));
+    }
+
+    @Test
+    public void packTest() {
+        Engine engine = new Engine(Level.example());
+        PackedState state = engine.toPackedState();
+        FloorMap floorMap = engine.getFloorMap();
+
+        assertEquals(engine.getBoxesCount(), state.getBoxesCount());
+        assertEquals(engine.getPlayerIndex(), floorMap.unpackPlayer(state));
+        for(int box : floorMap.unpackBoxes(state)) {
+            assertTrue(engine.isBox(box));
+        }
+        assertEquals(state, new Engine(Level.example()).toPackedState());
+        assertEquals(state.hashCode(), new Engine(Level.example()).toPackedState().hashCode());
+
+        engine.movePlayer(Direction.RIGHT);
+        assertNotEquals(state, engine.toPackedState());
+    }
+
+    @Test
+    public void bytesTest() {
+        PackedState state = new Engine(Level.example()).toPackedState();
+        byte[] bytes = state.toBytes();
+
+        assertEquals(2 + 2 * state.getBoxesCount(), bytes.length);
+        assertEquals(state, PackedState.fromBytes(bytes));
+    }
+}
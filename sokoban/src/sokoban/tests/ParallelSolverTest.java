@@ -0,0 +1,32 @@
+package sokoban.tests;
+
+import org.junit.Test;
+import sokoban.domain.Level;
+import sokoban.solver.AStarSolver;
+import sokoban.solver.ParallelSolver;
+import sokoban.solver.Problem;
+import sokoban.solver.Solution;
+import sokoban.solver.SpeedupReport;
+
+import static org.junit.Assert.*;
+
+public class ParallelSolverTest {
+    @Test
+    public void optimalTest() {
+        Level level = Level.example();
+        Solution solution = new ParallelSolver(4).solve(level);
+
+        assertNotNull(solution);
+        assertTrue(AStarSolverTest.replay(level, solution).isWinConditionFulfilled());
+        assertEquals(new AStarSolver().solve(level).getPushesCount(), solution.getPushesCount());
+    }
+
+    @Test
+    public void speedupTest() {
+        SpeedupReport report = ParallelSolver.measureSpeedup(new Problem(Level.example()), 1, 2);
+
+        assertEquals(2, report.getRunsCount());
+        assertEquals(2, report.getThreadCount(1));
+        assertEquals(1.0, report.getSpeedup(0), 0.0);
+    }
+}
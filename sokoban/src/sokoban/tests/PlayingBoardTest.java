@@ -1,10 +1,16 @@
 package sokoban.tests;
 
+import javafx.scene.Node;
+import javafx.scene.layout.Pane;
 import org.junit.Test;
+import sokoban.domain.Direction;
 import sokoban.domain.Level;
+import sokoban.entities.Box;
 import sokoban.logic.PlayingBoard;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class PlayingBoardTest {
     @Test
@@ -25,4 +31,41 @@ public class PlayingBoardTest {
             }
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void deadlockTest() {
+        Level level = Level.fromString("#####\n#@$ #\n#  .#\n#####\n");
+        PlayingBoard playingBoard = new PlayingBoard(level);
+        assertFalse(playingBoard.isDeadlocked());
+
+        playingBoard.movePlayer(Direction.RIGHT);
+        assertTrue(playingBoard.isDeadlocked());
+        assertFalse(playingBoard.isWinConditionFulfilled());
+        assertEquals(1, countDeadlockedBoxes(playingBoard));
+    }
+
+    @Test
+    public void laterDeadlockTest() {
+        Level level = Level.fromString("#######\n#@$   #\n# $ ..#\n#     #\n#######\n");
+        PlayingBoard playingBoard = new PlayingBoard(level);
+
+        playingBoard.movePlayer(Direction.RIGHT);
+        assertTrue(playingBoard.isDeadlocked());
+        assertEquals(1, countDeadlockedBoxes(playingBoard));
+
+        playingBoard.movePlayer(Direction.DOWN);
+        assertEquals(2, countDeadlockedBoxes(playingBoard));
+    }
+
+    private static int countDeadlockedBoxes(PlayingBoard playingBoard) {
+        int deadlockedCount = 0;
+        for(Node layer : playingBoard.getChildren()) {
+            for(Node entity : ((Pane) layer).getChildren()) {
+                if(entity instanceof Box && ((Box) entity).isDeadlocked()) {
+                    deadlockedCount++;
+                }
+            }
+        }
+        return deadlockedCount;
+    }
+}
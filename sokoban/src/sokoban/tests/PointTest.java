@@ -5,6 +5,7 @@ import sokoban.domain.Direction;
 import sokoban.domain.Point;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 
 public class PointTest {
     @Test
@@ -111,4 +112,14 @@ public class PointTest {
         assertEquals(-4, point.getY());
     }
 
+    @Test
+    public void equalsTest() {
+        Point point = new Point(3, 7);
+
+        assertEquals(new Point(3, 7), point);
+        assertEquals(new Point(3, 7).hashCode(), point.hashCode());
+        assertNotEquals(new Point(7, 7), point);
+        assertNotEquals(new Point(3, 3), point);
+        assertNotEquals(new Point(7, 3), point);
+    }
 }
\ No newline at end of file
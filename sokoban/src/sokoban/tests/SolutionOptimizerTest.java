@@ -0,0 +1,61 @@
+package sokoban.tests;
+
+import org.junit.Test;
+import sokoban.domain.Level;
+import sokoban.solver.AStarSolver;
+import sokoban.solver.Problem;
+import sokoban.solver.Solution;
+import sokoban.solver.SolutionOptimizer;
+
+import static org.junit.Assert.*;
+
+public class SolutionOptimizerTest {
+    private static final Level LEVEL = Level.fromString(
+            "#######\n" +
+            "#     #\n" +
+            "# $ @ #\n" +
+            "#     #\n" +
+            "#.    #\n" +
+            "#######");
+
+    @Test
+    public void parseTest() {
+        Problem problem = new Problem(LEVEL);
+        assertEquals(5, SolutionOptimizer.parse(problem, "ullldRdrruLLulDD").length);
+        assertEquals(5, SolutionOptimizer.parse(problem, "ullldrdrrullulDD").length);
+
+        try {
+            SolutionOptimizer.parse(problem, "ullldR");
+            fail();
+        } catch (IllegalArgumentException e) {
+            // level isn't solved
+        }
+        try {
+            SolutionOptimizer.parse(problem, "uu");
+            fail();
+        } catch (IllegalArgumentException e) {
+            // move into the wall
+        }
+    }
+
+    @Test
+    public void optimizeTest() {
+        Solution detour = new Solution("ullldRdrruLLulDD");
+        Solution optimal = new AStarSolver().solve(LEVEL);
+        Solution solution = new SolutionOptimizer(new Problem(LEVEL)).optimize(detour);
+
+        assertEquals(5, detour.getPushesCount());
+        assertEquals(optimal.getPushesCount(), solution.getPushesCount());
+        assertTrue(solution.getMovesCount() < detour.getMovesCount());
+        assertTrue(AStarSolverTest.replay(LEVEL, solution).isWinConditionFulfilled());
+    }
+
+    @Test
+    public void optimalTest() {
+        Solution optimal = new AStarSolver().solve(LEVEL);
+        Solution solution = new SolutionOptimizer(new Problem(LEVEL)).optimize(optimal);
+
+        assertEquals(optimal.getPushesCount(), solution.getPushesCount());
+        assertTrue(solution.getMovesCount() <= optimal.getMovesCount());
+    }
+}
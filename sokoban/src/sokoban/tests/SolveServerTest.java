@@ -0,0 +1,77 @@
+package sokoban.tests;
+
+import org.junit.Test;
+import sokoban.SolveServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class SolveServerTest {
+    /**
+     * Sends request to server and returns status code followed by body.
+     */
+    private static String request(SolveServer server, String method, String body) throws IOException {
+        URL url = new URL("http://localhost:" + server.getPort() + "/solve");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        if(body != null) {
+            connection.setDoOutput(true);
+            try(OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.US_ASCII));
+            }
+        }
+        int code = connection.getResponseCode();
+        InputStream in = (code < 400) ? connection.getInputStream() : connection.getErrorStream();
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        for(int count = in.read(buffer); count != -1; count = in.read(buffer)) {
+            response.write(buffer, 0, count);
+        }
+        in.close();
+        return code + " " + new String(response.toByteArray(), StandardCharsets.UTF_8).trim();
+    }
+
+    @Test
+    public void solveTest() throws IOException {
+        SolveServer server = new SolveServer(0, 1, 4);
+        server.start();
+        try {
+            String response = request(server, "POST",
+                    "#######\n" +
+                    "#     #\n" +
+                    "# $ @ #\n" +
+                    "#.    #\n" +
+                    "#######\n");
+            assertTrue(response.startsWith("200 {\"status\":\"solved\",\"pushes\":2,"));
+
+            response = request(server, "POST",
+                    "#####\n" +
+                    "#$  #\n" +
+                    "# @.#\n" +
+                    "#####\n");
+            assertTrue(response.startsWith("200 {\"status\":\"unsolvable\""));
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void errorTest() throws IOException {
+        SolveServer server = new SolveServer(0, 1, 4);
+        server.start();
+        try {
+            assertTrue(request(server, "POST", "#####\n#$ .#\n#####\n").startsWith("400 {\"status\":\"error\""));
+            assertTrue(request(server, "POST", "").startsWith("400 "));
+            assertTrue(request(server, "GET", null).startsWith("405 "));
+        } finally {
+            server.stop();
+        }
+    }
+}
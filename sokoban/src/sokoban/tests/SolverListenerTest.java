@@ -0,0 +1,86 @@
+package sokoban.tests;
+
+import org.junit.Test;
+import sokoban.domain.Level;
+import sokoban.solver.AStarSolver;
+import sokoban.solver.DeadlockType;
+import sokoban.solver.IdaStarSolver;
+import sokoban.solver.ParallelSolver;
+import sokoban.solver.Solver;
+import sokoban.solver.Statistics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SolverListenerTest {
+    private static final Level LEVEL = Level.fromString(
+            "########\n" +
+            "#   #  #\n" +
+            "# $  $ #\n" +
+            "# .# @ #\n" +
+            "#  $  .#\n" +
+            "# .    #\n" +
+            "########");
+
+    @Test
+    public void progressTest() {
+        List<Long> nodes = new ArrayList<>();
+        AStarSolver solver = new AStarSolver();
+        solver.setProgressInterval(0);
+        solver.setListener((source, statistics) -> {
+            assertSame(solver, source);
+            assertTrue(statistics.getBound() > 0);
+            assertTrue(statistics.getHeapMemory() > 0);
+            assertTrue(statistics.getOffHeapMemory() > 0);
+            nodes.add(statistics.getNodesCount());
+        });
+
+        assertNotNull(solver.solve(LEVEL));
+        assertFalse(nodes.isEmpty());
+        Statistics statistics = solver.getStatistics();
+        assertTrue(statistics.getPrunes(DeadlockType.DEAD_SQUARE) > 0);
+        for(int i = 1; i < nodes.size(); i++) {
+            assertTrue(nodes.get(i - 1) <= nodes.get(i));
+        }
+    }
+
+    @Test
+    public void abortTest() {
+        Solver solver = new IdaStarSolver();
+        solver.setProgressInterval(0);
+        solver.setListener((source, statistics) -> {
+            if(statistics.getNodesCount() >= 10) {
+                source.abort();
+            }
+        });
+
+        assertNull(solver.solve(LEVEL));
+        assertTrue(solver.getStatistics().isAborted());
+        assertTrue(solver.getStatistics().getNodesCount() < 20);
+    }
+
+    @Test
+    public void abortBeforeSolveTest() {
+        Solver solver = new AStarSolver();
+        solver.abort();
+        assertNull(solver.solve(LEVEL));
+        assertTrue(solver.getStatistics().isAborted());
+
+        assertNotNull(solver.solve(LEVEL));
+        assertFalse(solver.getStatistics().isAborted());
+    }
+
+    @Test
+    public void parallelTest() {
+        ParallelSolver solver = new ParallelSolver(2);
+        assertNotNull(solver.solve(LEVEL));
+        assertTrue(solver.getStatistics().getPrunes(DeadlockType.DEAD_SQUARE) > 0);
+
+        solver.setNodesLimit(10);
+        assertNull(solver.solve(LEVEL));
+        assertTrue(solver.getStatistics().isAborted());
+        assertTrue(solver.getStatistics().getNodesCount() <= 12);
+    }
+}
@@ -0,0 +1,90 @@
+package sokoban.tests;
+
+import org.junit.Test;
+import sokoban.domain.Level;
+import sokoban.solver.AStarSolver;
+import sokoban.solver.ReplacementPolicy;
+import sokoban.solver.Solution;
+import sokoban.solver.SpillingStateTable;
+import sokoban.solver.StateTable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class SpillingStateTableTest {
+    @Test
+    public void spillTest() throws IOException {
+        File directory = Files.createTempDirectory("states").toFile();
+        SpillingStateTable table = new SpillingStateTable(64 * StateTable.SLOT_SIZE, directory);
+        try {
+            for(long key = 1; key <= 1000; key++) {
+                table.add(key * 7919, 0);
+            }
+            assertTrue(table.getSpilledCount() > 0);
+            assertTrue(table.getChunksCount() <= 9);
+            assertEquals(1000, table.size());
+
+            boolean[] found = table.findSpilled(new long[]{7919, 3, 500 * 7919, 1001 * 7919});
+            assertTrue(found[0]);
+            assertFalse(found[1]);
+            assertTrue(found[2]);
+            assertFalse(found[3]);
+
+            table.clear();
+            assertEquals(0, table.size());
+            assertEquals(0, table.getChunksCount());
+        } finally {
+            table.delete();
+            directory.delete();
+        }
+    }
+
+    @Test
+    public void fullProbeTest() throws IOException {
+        File directory = Files.createTempDirectory("states").toFile();
+        SpillingStateTable table = new SpillingStateTable(1024 * StateTable.SLOT_SIZE, directory);
+        try {
+            // all keys have the same home slot, so the ninth finds no free slot
+            for(long key = 1; key <= 9; key++) {
+                assertTrue(table.add(key << 32, 0));
+            }
+            assertEquals(9, table.size());
+            assertEquals(8, table.getSpilledCount());
+            assertTrue(table.contains(9L << 32));
+            assertTrue(table.findSpilled(new long[]{1L << 32})[0]);
+        } finally {
+            table.delete();
+            directory.delete();
+        }
+    }
+
+    @Test
+    public void solveTest() throws IOException {
+        Level level = Level.fromString(
+                "########\n" +
+                "#   #  #\n" +
+                "# $  $ #\n" +
+                "# .# @ #\n" +
+                "#  $  .#\n" +
+                "# .    #\n" +
+                "########");
+        Solution expected = new AStarSolver().solve(level);
+
+        File directory = Files.createTempDirectory("states").toFile();
+        try {
+            AStarSolver solver = new AStarSolver(64 * StateTable.SLOT_SIZE, ReplacementPolicy.NEVER);
+            solver.setSpillDirectory(directory);
+            Solution solution = solver.solve(level);
+
+            assertNotNull(solution);
+            assertEquals(expected.getPushesCount(), solution.getPushesCount());
+            assertTrue(AStarSolverTest.replay(level, solution).isWinConditionFulfilled());
+            assertEquals(0, directory.list().length);
+        } finally {
+            directory.delete();
+        }
+    }
+}
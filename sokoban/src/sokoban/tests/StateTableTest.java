@@ -0,0 +1,54 @@
+package sokoban.tests;
+
+import org.junit.Test;
+import sokoban.solver.ReplacementPolicy;
+import sokoban.solver.StateTable;
+
+import static org.junit.Assert.*;
+
+public class StateTableTest {
+    @Test
+    public void addTest() {
+        StateTable table = new StateTable(1 << 20, ReplacementPolicy.NEVER);
+
+        assertFalse(table.contains(42));
+        assertEquals(StateTable.NOT_FOUND, table.get(42));
+        assertTrue(table.add(42, 7));
+        assertFalse(table.add(42, 9));
+        assertEquals(7, table.get(42));
+        assertTrue(table.add(0, 3));
+        assertEquals(3, table.get(0));
+        assertEquals(2, table.size());
+
+        table.clear();
+        assertEquals(0, table.size());
+        assertFalse(table.contains(42));
+    }
+
+    @Test
+    public void budgetTest() {
+        StateTable table = new StateTable(16 * StateTable.SLOT_SIZE, ReplacementPolicy.NEVER);
+
+        assertEquals(16, table.capacity());
+        assertTrue(table.getMemoryUsage() <= 16 * StateTable.SLOT_SIZE);
+        for(long key = 1; key <= 100; key++) {
+            table.add(key * 16, (int) key);
+        }
+        assertEquals(8, table.size());
+        assertEquals(92, table.getEvictions());
+        assertTrue(table.contains(16));
+        assertFalse(table.contains(100 * 16));
+    }
+
+    @Test
+    public void replacementTest() {
+        StateTable table = new StateTable(16 * StateTable.SLOT_SIZE, ReplacementPolicy.CHEAPEST);
+
+        for(long key = 1; key <= 9; key++) {
+            table.add(key * 16, (int) key);
+        }
+        assertFalse(table.contains(16));
+        assertTrue(table.contains(9 * 16));
+        assertTrue(table.contains(2 * 16));
+    }
+}